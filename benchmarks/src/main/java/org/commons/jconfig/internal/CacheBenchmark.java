@@ -0,0 +1,124 @@
+package org.commons.jconfig.internal;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Concurrent reads and inserts of {@link ConcurrentLRUCache} against
+ * {@link ConcurrentTinyLFUCache}. Keys are drawn from a skewed distribution
+ * over twice the cache size, so both hits and evictions happen.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(8)
+@Fork(1)
+public class CacheBenchmark {
+    private static final int KEYS = 1 << 14;
+    private static final int MASK = KEYS - 1;
+
+    /** cache api shared by both implementations */
+    private interface Cache {
+        Integer get(Integer key);
+
+        void put(Integer key, Integer value);
+    }
+
+    @Param({ "lru", "tinylfu" })
+    public String implementation;
+
+    @Param({ "1024" })
+    public int maxSize;
+
+    private Cache cache;
+    private Integer[] keys;
+
+    @Setup
+    public void setup() {
+        if ("lru".equals(implementation)) {
+            final ConcurrentLRUCache<Integer, Integer> lru = new ConcurrentLRUCache<Integer, Integer>(maxSize);
+            cache = new Cache() {
+                @Override
+                public Integer get(final Integer key) {
+                    return lru.get(key);
+                }
+
+                @Override
+                public void put(final Integer key, final Integer value) {
+                    lru.put(key, value);
+                }
+            };
+        } else {
+            final ConcurrentTinyLFUCache<Integer, Integer> tinyLfu = new ConcurrentTinyLFUCache<Integer, Integer>(
+                    maxSize);
+            cache = new Cache() {
+                @Override
+                public Integer get(final Integer key) {
+                    return tinyLfu.get(key);
+                }
+
+                @Override
+                public void put(final Integer key, final Integer value) {
+                    tinyLfu.put(key, value);
+                }
+            };
+        }
+        // the square of a uniform value favours small keys
+        Random random = new Random(42);
+        keys = new Integer[KEYS];
+        for (int i = 0; i < KEYS; i++) {
+            double u = random.nextDouble();
+            keys[i] = Integer.valueOf((int) (u * u * maxSize * 2));
+        }
+        for (Integer key : keys) {
+            cache.put(key, key);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        private int index;
+
+        @Setup(Level.Iteration)
+        public void setup() {
+            index = new Random().nextInt(KEYS);
+        }
+
+        int next() {
+            return index++ & MASK;
+        }
+    }
+
+    /** read, and insert on a miss as ConfigManager.getConfig does */
+    @Benchmark
+    public Integer getOrPut(final Cursor cursor) {
+        Integer key = keys[cursor.next()];
+        Integer value = cache.get(key);
+        if (value == null) {
+            cache.put(key, key);
+            return key;
+        }
+        return value;
+    }
+
+    @Benchmark
+    public Integer get(final Cursor cursor) {
+        return cache.get(keys[cursor.next()]);
+    }
+}
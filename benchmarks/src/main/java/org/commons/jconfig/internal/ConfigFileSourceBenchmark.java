@@ -0,0 +1,99 @@
+package org.commons.jconfig.internal;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+
+/**
+ * Parsing a json config file read through the mapped and the streamed
+ * {@link ConfigFileSource} readers, and copied into a string as the adapters
+ * used to.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = { "-Xmx512m" })
+public class ConfigFileSourceBenchmark {
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    /** number of keys in the file, 40000 keys is about 2 MB */
+    @Param({ "2000", "40000" })
+    public int keys;
+
+    private File file;
+
+    @Setup
+    public void setup() throws IOException {
+        StringBuilder content = new StringBuilder("{\"Modules\":{");
+        for (int i = 0; i < keys; i++) {
+            content.append("\"module").append(i).append("\":{\"Host\":\"host").append(i)
+            .append(".example.com\",\"Timeout\":\"30 s\"},");
+        }
+        content.append("\"end\":{}}}");
+        file = File.createTempFile("jconfig-benchmark", ".json");
+        Files.write(file.toPath(), content.toString().getBytes(UTF8));
+    }
+
+    @TearDown
+    public void tearDown() {
+        file.delete();
+    }
+
+    private static JsonElement parse(final Reader reader) throws IOException {
+        try {
+            return new JsonParser().parse(reader);
+        } finally {
+            reader.close();
+        }
+    }
+
+    @Benchmark
+    public JsonElement mapped() throws IOException {
+        return parse(ConfigFileSource.openReader(file, UTF8, 0));
+    }
+
+    @Benchmark
+    public JsonElement streamed() throws IOException {
+        return parse(ConfigFileSource.openReader(file, UTF8, Long.MAX_VALUE));
+    }
+
+    @Benchmark
+    public JsonElement copiedToString() throws IOException {
+        StringWriter writer = new StringWriter();
+        Reader reader = new InputStreamReader(new FileInputStream(file), UTF8);
+        try {
+            char[] buffer = new char[4096];
+            int n;
+            while ((n = reader.read(buffer)) != -1) {
+                writer.write(buffer, 0, n);
+            }
+        } finally {
+            reader.close();
+        }
+        return new JsonParser().parse(writer.toString());
+    }
+}
@@ -0,0 +1,77 @@
+package org.commons.jconfig.internal;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Config setter and getter invocation, {@link Method#invoke(Object, Object...)}
+ * against the {@link MethodAccessors} method handle accessors.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MethodAccessorBenchmark {
+
+    public static class Bean {
+        private String name;
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(final String name) {
+            this.name = name;
+        }
+    }
+
+    private final Bean bean = new Bean();
+    private final String value = "value";
+
+    private Method getter;
+    private Method setter;
+    private MethodAccessor handleGetter;
+    private MethodAccessor handleSetter;
+
+    @Setup
+    public void setup() throws NoSuchMethodException {
+        getter = Bean.class.getMethod("getName");
+        setter = Bean.class.getMethod("setName", String.class);
+        handleGetter = MethodAccessors.of(getter);
+        handleSetter = MethodAccessors.of(setter);
+    }
+
+    @Benchmark
+    public Object reflectiveSet() throws IllegalAccessException, InvocationTargetException {
+        return setter.invoke(bean, value);
+    }
+
+    @Benchmark
+    public Object handleSet() throws IllegalAccessException, InvocationTargetException {
+        return handleSetter.invoke(bean, value);
+    }
+
+    @Benchmark
+    public Object reflectiveGet() throws IllegalAccessException, InvocationTargetException {
+        return getter.invoke(bean);
+    }
+
+    @Benchmark
+    public Object handleGet() throws IllegalAccessException, InvocationTargetException {
+        return handleGetter.invoke(bean);
+    }
+}
@@ -0,0 +1,81 @@
+package org.commons.jconfig.internal;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.commons.jconfig.datatype.ByteValue;
+import org.commons.jconfig.datatype.TimeValue;
+import org.commons.jconfig.datatype.ValueType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Conversion of config values, the memoized {@link ValueParser#convert} against
+ * parsing the raw string on every call.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ValueParserBenchmark {
+
+    private final String time = "30 seconds";
+    private final String bytes = "512 KB";
+    private final String stringList = "alpha:beta:gamma:delta";
+    private final String timeList = "1s:5s:30s:2m";
+
+    @Benchmark
+    public Object parseTime() {
+        return TimeValue.parse(time);
+    }
+
+    @Benchmark
+    public Object convertTime() {
+        return ValueParser.convert(ValueType.Time, time);
+    }
+
+    @Benchmark
+    public Object parseBytes() {
+        return ByteValue.parse(bytes);
+    }
+
+    @Benchmark
+    public Object convertBytes() {
+        return ValueParser.convert(ValueType.Bytes, bytes);
+    }
+
+    @Benchmark
+    public Object parseStringList() {
+        return Arrays.asList(stringList.split(":"));
+    }
+
+    @Benchmark
+    public Object convertStringList() {
+        return ValueParser.convert(ValueType.StringList, stringList);
+    }
+
+    @Benchmark
+    public Object parseTimeList() {
+        List<TimeValue> list = new ArrayList<TimeValue>();
+        for (String value : timeList.split(":")) {
+            list.add(TimeValue.parse(value));
+        }
+        return list;
+    }
+
+    @Benchmark
+    public Object convertTimeList() {
+        return ValueParser.convert(ValueType.TimeList, timeList);
+    }
+}
@@ -75,6 +75,46 @@ public class ConfigLoaderConfig {
         jmxReadInterval = timeValue;
     }
 
+    private TimeValue jvmProbeInterval;
+
+    /**
+     * How long a jvm without ConfigManager is not probed again, once it is
+     * older than the jvm probe grace period. Jvms that register a
+     * ConfigManager after that are found after this interval.
+     * 
+     * @return TimeValue
+     */
+    @ConfigGet(description = "Interval to probe again jvms without ConfigManager", type = ValueType.Time, defaultValue = "5 m")
+    public TimeValue getJvmProbeInterval() {
+        return jvmProbeInterval;
+    }
+
+    @ConfigSet
+    @TimeRange(min = "0 ms", max = "24 h")
+    public void setJvmProbeInterval(final TimeValue timeValue) {
+        jvmProbeInterval = timeValue;
+    }
+
+    private TimeValue jvmProbeGracePeriod;
+
+    /**
+     * How long a new jvm is probed on every sync, ConfigManager registers its
+     * MBean on the first getConfig, usually after the jvm started. Only jvms
+     * older than this wait for the jvm probe interval.
+     * 
+     * @return TimeValue
+     */
+    @ConfigGet(description = "Time after a jvm appears during which it is probed on every sync", type = ValueType.Time, defaultValue = "2 m")
+    public TimeValue getJvmProbeGracePeriod() {
+        return jvmProbeGracePeriod;
+    }
+
+    @ConfigSet
+    @TimeRange(min = "0 ms", max = "24 h")
+    public void setJvmProbeGracePeriod(final TimeValue timeValue) {
+        jvmProbeGracePeriod = timeValue;
+    }
+
     private String jmxFileName;
 
     /**
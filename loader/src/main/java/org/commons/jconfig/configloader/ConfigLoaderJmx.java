@@ -1,11 +1,17 @@
 package org.commons.jconfig.configloader;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.management.Attribute;
 import javax.management.AttributeNotFoundException;
@@ -82,7 +88,7 @@ extends NotificationBroadcasterSupport implements ConfigLoaderJmxMXBean {
      */
     protected void init(final ConfigLoaderConfig config) {
         this.config = config;
-        AutoConf autoconf = new AutoConf(config);
+        autoconf = new AutoConf(config);
         AutoConfAdapter stdrdAdapter = new AutoConfAdapter(autoconf);
         LsgAdapter lsgAdapter = new LsgAdapter(autoconf);
 
@@ -153,7 +159,12 @@ extends NotificationBroadcasterSupport implements ConfigLoaderJmxMXBean {
             JsonNode appNode = getApplicationConfig(mbsc, applicationName, configNames);
             logger.debug("loading " + applicationName + " with configs:  " + appNode.toString());
 
-            // For each registered configuration MBean set the MBean properties
+            if (applyModuleConfigs(mbsc, managerObjectName, applicationName, appNode, configNames, force)) {
+                result = true;
+                return;
+            }
+
+            // ConfigManager without bulk load, set the properties of each registered configuration MBean
             for (ObjectName bname : configNames) {
 
                 try {
@@ -187,9 +198,138 @@ extends NotificationBroadcasterSupport implements ConfigLoaderJmxMXBean {
         }
     }
 
+    /**
+     * Outcome of {@link ConfigLoaderJmx#loadAppSnapshot(ObjectName, int)}
+     */
+    public enum SnapshotResult {
+        /** the ConfigManager swapped in the snapshot */
+        APPLIED,
+        /**
+         * nothing changed, the ConfigManager has a newer snapshot or no config
+         * MBeans
+         */
+        STALE,
+        /** the ConfigManager does not support snapshots, nothing changed */
+        UNSUPPORTED
+    }
+
+    /**
+     * for the given appName, replace the configurations of the ConfigManager
+     * with a single versioned snapshot of all its modules, see
+     * {@link org.commons.jconfig.internal.jmx.ConfigManagerJmxMXBean#applySnapshot(long, int, String)}
+     * <br>
+     * <br>
+     * The ConfigManager validates the snapshot and swaps it in only if no
+     * newer snapshot was applied, so concurrent or interrupted loads never
+     * leave it with a mix of values.
+     * 
+     * @param managerObjectName
+     * @param hashCode
+     *            hash of the application configs, see
+     *            {@link #getAppConfigHash(ConfigManagerJvm, String)}
+     * @return whether the snapshot was applied
+     * @throws VirtualMachineException
+     * @throws ConfigException
+     *             if the configurations could not be built or were rejected
+     */
+    public SnapshotResult loadAppSnapshot(final ObjectName managerObjectName, final int hashCode)
+            throws VirtualMachineException, ConfigException {
+        String applicationName = managerObjectName.getKeyProperty(ConfigManagerJvm.APPNAME_KEY);
+        // before reading the configs, a snapshot of newer configs gets a newer version
+        long version = nextSnapshotVersion();
+        ConfigManagerJvm vm = new ConfigManagerJvm(managerObjectName);
+
+        SnapshotResult result = SnapshotResult.UNSUPPORTED;
+        boolean sendNotification = true;
+        String notificationMsg = "config loading for " + applicationName + " application is complete";
+
+        try {
+            vm.attach();
+            MBeanServerConnection mbsc = vm.getJMXConnector().getMBeanServerConnection();
+
+            Set<ObjectName> configNames = new TreeSet<ObjectName>(mbsc.queryNames(new ObjectName(
+                    ConfigManagerJmx.CONFIG_MBEANS_SEARCH_PATTERN + applicationName + ",*"), null));
+            if (configNames.size() == 0) {
+                logger.error("No configuration MBeans registered in " + applicationName);
+                result = SnapshotResult.STALE;
+                return result;
+            }
+
+            JsonNode appNode = getApplicationConfig(mbsc, applicationName, configNames);
+            Map<String, Integer> checkSums = new LinkedHashMap<String, Integer>();
+            List<String> missing = new ArrayList<String>();
+            ObjectNode payload = createModulesPayload(applicationName, appNode, configNames, true, checkSums, missing);
+
+            Object applied;
+            try {
+                applied = mbsc.invoke(managerObjectName, "applySnapshot",
+                        new Object[] { version, hashCode, payload.toString() },
+                        new String[] { long.class.getName(), int.class.getName(), String.class.getName() });
+            } catch (ReflectionException e) {
+                logger.info("ConfigManager of " + applicationName + " does not support snapshots");
+                sendNotification = false;
+                return result;
+            }
+            if (Boolean.TRUE.equals(applied)) {
+                notifyModules(applicationName, payload, checkSums, missing);
+                result = SnapshotResult.APPLIED;
+            } else {
+                logger.info("ConfigManager of " + applicationName + " has configs newer than version " + version);
+                sendNotification = false;
+                result = SnapshotResult.STALE;
+            }
+        } catch (VirtualMachineException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new ConfigException(e);
+        } finally {
+            if (sendNotification) {
+                LoadAppConfigsNotification n = new LoadAppConfigsNotification(this, sequenceNumber++,
+                        System.currentTimeMillis(), notificationMsg, applicationName,
+                        result == SnapshotResult.APPLIED);
+                sendNotification(n);
+                logger.info("Notified application " + applicationName + " about new configs.");
+            }
+            try {
+                vm.close();
+            } catch (VirtualMachineException e) {
+                logger.error(e.getMessage());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return a snapshot version greater than the versions returned before,
+     *         also by a previous run of the loader
+     */
+    private long nextSnapshotVersion() {
+        while (true) {
+            long last = snapshotVersion.get();
+            long next = Math.max(last + 1, System.currentTimeMillis());
+            if (snapshotVersion.compareAndSet(last, next)) {
+                return next;
+            }
+        }
+    }
+
+    /**
+     * Checks the config source for changes.
+     * 
+     * @return a number that changes whenever the config source is reloaded
+     * @throws ConfigException
+     *             if the config source is missing or invalid
+     */
+    public long getConfigVersion() throws ConfigException {
+        return autoconf.getVersion();
+    }
+
     /**
      * Generate hash value for application config and return 0 if config not
-     * found or any error returned.
+     * found or any error returned.<br>
+     * <br>
+     * The hash is computed again only when the config source was reloaded or
+     * the config MBeans of the application changed since the last call.
      * 
      * @param vm
      *            {@link ConfigManagerJvm} Assume vm is already attached
@@ -199,19 +339,27 @@ extends NotificationBroadcasterSupport implements ConfigLoaderJmxMXBean {
      */
     public Integer getAppConfigHash(ConfigManagerJvm vm, String appName) {
         try {
+            // read first, a reload while computing makes the next call compute again
+            long version = getConfigVersion();
             MBeanServerConnection mbsc = vm.getJMXConnector().getMBeanServerConnection();
-            Set<ObjectName> configNames = new TreeSet<ObjectName>();            
-            configNames = new TreeSet<ObjectName>(mbsc.queryNames(new ObjectName(
+            Set<ObjectName> configNames = new TreeSet<ObjectName>(mbsc.queryNames(new ObjectName(
                     ConfigManagerJmx.CONFIG_MBEANS_SEARCH_PATTERN + appName + ",*"), null));
 
             if (configNames.size() == 0) {
                 return 0;
             }
 
+            AppConfigHash cached = appConfigHashMap.get(appName);
+            if (cached != null && cached.version == version && cached.configNames.equals(configNames)) {
+                return cached.hash;
+            }
+
             JsonNode appNode = getApplicationConfig(mbsc, appName, configNames);
             if (appNode != null) {
                 ObjectMapper mapper = new ObjectMapper();
-                return mapper.writeValueAsString(appNode).hashCode();
+                int hash = mapper.writeValueAsString(appNode).hashCode();
+                appConfigHashMap.put(appName, new AppConfigHash(version, configNames, hash));
+                return hash;
             } else {
                 return 0;
             }
@@ -224,8 +372,175 @@ extends NotificationBroadcasterSupport implements ConfigLoaderJmxMXBean {
         }
         return 0;
     }
-    
-    
+
+    /**
+     * @param vm
+     * @return hash of the configs last loaded into vm, null if none were
+     */
+    public Integer getLoadedConfigHash(final ConfigManagerJvm vm) {
+        return loadedConfigHashMap.get(vmKey(vm));
+    }
+
+    /**
+     * Records the hash of the configs loaded into vm
+     * 
+     * @param vm
+     * @param hash
+     */
+    public void setLoadedConfigHash(final ConfigManagerJvm vm, final int hash) {
+        loadedConfigHashMap.put(vmKey(vm), hash);
+    }
+
+    /**
+     * Forgets the configs loaded into vm, e.g. once its jvm exited
+     * 
+     * @param vm
+     */
+    public void removeLoadedConfigHash(final ConfigManagerJvm vm) {
+        loadedConfigHashMap.remove(vmKey(vm));
+    }
+
+    private static String vmKey(final ConfigManagerJvm vm) {
+        return vm.getVmId() + "/" + vm.getObjectName().getCanonicalName();
+    }
+
+    /**
+     * Hash of an application config, valid as long as the config source
+     * version and the config MBeans of the application do not change.
+     */
+    private static final class AppConfigHash {
+        private final long version;
+        private final Set<ObjectName> configNames;
+        private final int hash;
+
+        private AppConfigHash(final long version, final Set<ObjectName> configNames, final int hash) {
+            this.version = version;
+            this.configNames = configNames;
+            this.hash = hash;
+        }
+    }
+
+    /**
+     * Sets the configurations of all the Config MBeans of the given appName
+     * with a single call to the ConfigManager, see
+     * {@link org.commons.jconfig.internal.jmx.ConfigManagerJmxMXBean#applyModules(String)}
+     * <br>
+     * <br>
+     * Sets the same values as {@link #loadModuleConfigs} for each Config MBean,
+     * apart from json entries that have no MBean attribute.
+     * 
+     * @param mbsc
+     * @param managerObjectName
+     * @param appName
+     * @param appNode
+     * @param configNames
+     * @param force
+     *            if false, only set the modules whose configurations changed
+     *            from previous load. else, load regardless.
+     * @return false if the ConfigManager does not support bulk load, in which
+     *         case nothing was set
+     * @throws InstanceNotFoundException
+     * @throws MBeanException
+     *             if the ConfigManager rejected the configurations
+     * @throws IOException
+     */
+    private boolean applyModuleConfigs(final MBeanServerConnection mbsc, final ObjectName managerObjectName,
+            final String appName, final JsonNode appNode, final Set<ObjectName> configNames, final boolean force)
+            throws InstanceNotFoundException, MBeanException, IOException {
+
+        Map<String, Integer> checkSums = new LinkedHashMap<String, Integer>();
+        List<String> missing = new ArrayList<String>();
+        ObjectNode payload = createModulesPayload(appName, appNode, configNames, force, checkSums, missing);
+
+        if (!checkSums.isEmpty()) {
+            try {
+                mbsc.invoke(managerObjectName, "applyModules", new Object[] { payload.toString() },
+                        new String[] { String.class.getName() });
+            } catch (ReflectionException e) {
+                logger.info("ConfigManager of " + appName + " does not support bulk load, setting attributes");
+                return false;
+            }
+        }
+        notifyModules(appName, payload, checkSums, missing);
+        return true;
+    }
+
+    /**
+     * Builds the document loading the modules of the Config MBeans of the given
+     * appName, in config file format.
+     * 
+     * @param appName
+     * @param appNode
+     * @param configNames
+     * @param force
+     *            if false, only add the modules whose configurations changed
+     *            from previous load. else, add all.
+     * @param checkSums
+     *            receives the checksums of the modules added
+     * @param missing
+     *            receives the modules without configuration
+     * @return {"Modules": { module : value, ... }}
+     */
+    private ObjectNode createModulesPayload(final String appName, final JsonNode appNode,
+            final Set<ObjectName> configNames, final boolean force, final Map<String, Integer> checkSums,
+            final List<String> missing) {
+        ObjectMapper mapper = new ObjectMapper();
+        ObjectNode modulesNode = mapper.createObjectNode();
+
+        for (ObjectName bname : configNames) {
+            String module = moduleName(bname);
+            if (!hasModule(appNode, module)) {
+                missing.add(module);
+                continue;
+            }
+            JsonNode moduleNode = getModule(appNode, module);
+
+            // If we are reSynching, check if the config source configuration changed from our last load
+            Integer checkSum = moduleNode.hashCode();
+            if (!force && checkSum.equals(moduleConfCheckSumMap.get(appName + "." + module))) {
+                logger.debug("configuration for the " + module + " module for the " + appName + " applicaton still in synch");
+                continue;
+            }
+            modulesNode.put(module, createModuleNode(moduleNode));
+            checkSums.put(module, checkSum);
+        }
+
+        ObjectNode payload = mapper.createObjectNode();
+        payload.put("Modules", modulesNode);
+        return payload;
+    }
+
+    /**
+     * Records the checksums of the modules loaded from payload and notifies
+     * about each module
+     */
+    private void notifyModules(final String appName, final ObjectNode payload, final Map<String, Integer> checkSums,
+            final List<String> missing) {
+        JsonNode modulesNode = payload.get("Modules");
+        for (String module : missing) {
+            String notificationMsg = "no configuration found for the " + module + " module for the " + appName + " applicaton";
+            logger.error(notificationMsg);
+            sendModuleNotification(notificationMsg, appName, module, false);
+        }
+        for (Map.Entry<String, Integer> entry : checkSums.entrySet()) {
+            String module = entry.getKey();
+            logger.info("configuration for the " + module + " module for the " + appName + " applicaton: "
+                    + modulesNode.get(module).toString());
+            // update our chucksum for this module
+            moduleConfCheckSumMap.put(appName + "." + module, entry.getValue());
+            sendModuleNotification("config loading for module " + module + " of " + appName + " application is complete",
+                    appName, module, true);
+        }
+    }
+
+    private void sendModuleNotification(final String notificationMsg, final String appName, final String module,
+            final boolean result) {
+        LoadModuleConfigsNotification n = new LoadModuleConfigsNotification(this, sequenceNumber++,
+                System.currentTimeMillis(), notificationMsg, appName, module, result);
+        sendNotification(n);
+        logger.info("Notified module " + module + " of application " + appName + " about new configs.");
+    }
+
     /**
      * for the Config MBean in the given appName, set the MBean with
      * configurations<br>
@@ -313,13 +628,7 @@ extends NotificationBroadcasterSupport implements ConfigLoaderJmxMXBean {
             if ( sendNotification ) {
                 //
                 // Send the notification for this module
-                LoadModuleConfigsNotification n =
-                        new LoadModuleConfigsNotification(
-                                this, sequenceNumber++, System.currentTimeMillis(),
-                                notificationMsg, appName, module,  result);
-
-                sendNotification(n);
-                logger.info("Notified module " + module + " of application " + appName + " about new configs.");
+                sendModuleNotification(notificationMsg, appName, module, result);
             }
         }
     }
@@ -453,7 +762,19 @@ extends NotificationBroadcasterSupport implements ConfigLoaderJmxMXBean {
      *             type.
      */
     private static Attribute createConfigAttribute(final MBeanAttributeInfo attrib, final JsonNode node) throws ConfigException {
-        String attribName = attrib.getName();
+        return new Attribute(attrib.getName(), createConfigNode(attrib.getName(), node).toString());
+    }
+
+    /**
+     * Given a configuration node, create the node set for one attribute
+     * 
+     * @param attribName
+     *            attribute name
+     * @param node
+     *            configuration node
+     * @return the attribute value and the sets with a value for it
+     */
+    private static ObjectNode createConfigNode(final String attribName, final JsonNode node) {
         ObjectMapper mapper = new ObjectMapper();
         ObjectNode rootNode = mapper.createObjectNode();
         ArrayNode newSets = mapper.createArrayNode();
@@ -502,7 +823,47 @@ extends NotificationBroadcasterSupport implements ConfigLoaderJmxMXBean {
             rootNode.put(SETS, newSets);
         }
 
-        return new Attribute(attrib.getName(), rootNode.toString());
+        return rootNode;
+    }
+
+    /**
+     * Given a module configuration node, create the node with the values
+     * {@link #createConfigNode} would set for each of its attributes, so the
+     * ConfigManager ends up with the same values.
+     * 
+     * @param moduleNode
+     *            configuration node of the module
+     * @return module node to load
+     */
+    private static ObjectNode createModuleNode(final JsonNode moduleNode) {
+        ObjectMapper mapper = new ObjectMapper();
+        ObjectNode rootNode = mapper.createObjectNode();
+
+        Iterator<String> names = moduleNode.getFieldNames();
+        while (names.hasNext()) {
+            String name = names.next();
+            if (!name.equals(SETS_TYPE) && !name.equals(SETS)) {
+                rootNode.put(name, moduleNode.get(name));
+            }
+        }
+
+        if (null != moduleNode.get(SETS_TYPE)) {
+            // attributes with a value in the sets
+            Set<String> setAttribNames = new LinkedHashSet<String>();
+            for (JsonNode setElement : moduleNode.path(SETS)) {
+                Iterator<String> keyListNames = setElement.path(SETS_KEYLIST_NODE).getFieldNames();
+                while (keyListNames.hasNext()) {
+                    setAttribNames.add(keyListNames.next());
+                }
+            }
+            ArrayNode newSets = mapper.createArrayNode();
+            for (String attribName : setAttribNames) {
+                newSets.addAll((ArrayNode) createConfigNode(attribName, moduleNode).get(SETS));
+            }
+            rootNode.put(SETS_TYPE, moduleNode.get(SETS_TYPE));
+            rootNode.put(SETS, newSets);
+        }
+        return rootNode;
     }
 
     /**
@@ -526,6 +887,27 @@ extends NotificationBroadcasterSupport implements ConfigLoaderJmxMXBean {
      */
     private final Map<String, Integer> moduleConfCheckSumMap = new HashMap<String, Integer>();
 
+    /**
+     * Map of application name to the hash of its configuration
+     */
+    private final Map<String, AppConfigHash> appConfigHashMap = new ConcurrentHashMap<String, AppConfigHash>();
+
+    /**
+     * Map of "vmId/ConfigManager MBean name" to the hash of the configurations
+     * last loaded into that ConfigManager
+     */
+    private final Map<String, Integer> loadedConfigHashMap = new ConcurrentHashMap<String, Integer>();
+
+    /**
+     * Last snapshot version handed out
+     */
+    private final AtomicLong snapshotVersion = new AtomicLong(0);
+
+    /**
+     * AutoConf source read by the config module adapters
+     */
+    private AutoConf autoconf;
+
     /**
      * Map of known config module adapters
      */
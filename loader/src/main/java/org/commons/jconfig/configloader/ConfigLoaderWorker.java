@@ -3,11 +3,13 @@ package org.commons.jconfig.configloader;
 import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.log4j.Logger;
+import org.commons.jconfig.config.ConfigException;
 import org.commons.jconfig.internal.Worker;
 import org.commons.jconfig.internal.WorkerException;
 import org.commons.jconfig.internal.WorkerExecutorService;
 import org.commons.jconfig.internal.WorkerFuture;
 import org.commons.jconfig.internal.jmx.ConfigManagerJvm;
+import org.commons.jconfig.internal.jmx.JmxConnectorPool;
 import org.commons.jconfig.internal.jmx.VirtualMachineException;
 
 
@@ -16,19 +18,44 @@ public class ConfigLoaderWorker implements Worker<Object> {
     private final Exception cause = null;
     private final WorkerExecutorService executor;
     private long lastUpdateTimeStamp = 0;
+    /** version of the config source at the last sync */
+    private long configVersion = -1;
     private final static Logger logger = Logger.getLogger(ConfigLoaderWorker.class);
 
     public ConfigLoaderWorker(final WorkerExecutorService executor, final ConfigLoaderJmx mbean) {
         this.mbean = mbean;
         this.executor = executor;
+        this.discovery = new JvmDiscoveryService(mbean.getConfig(), JmxConnectorPool.INSTANCE);
+        discovery.addListener(new JvmDiscoveryService.Listener() {
+            @Override
+            public void added(final ConfigManagerJvm vm) {
+            }
+
+            @Override
+            public void removed(final ConfigManagerJvm vm) {
+                // stop pushing configs to a jvm that exited
+                mbean.removeLoadedConfigHash(vm);
+                WorkerFuture<Object> future = vms.remove(vm.getObjectName().getCanonicalName());
+                if (future != null) {
+                    future.cancel(true);
+                }
+            }
+        });
     }
 
+    /** ConfigManager jvms of this host */
+    private final JvmDiscoveryService discovery;
+
     private final ConcurrentHashMap<String, WorkerFuture<Object>> vms = new ConcurrentHashMap<String, WorkerFuture<Object>>();
 
     @Override
     public boolean execute() {
-        /* if config sync interval is greater than lastUpdate interval than return false */
-        if (mbean.getConfig().getConfigSyncInterval().toMillis() > (System.currentTimeMillis() - lastUpdateTimeStamp)) {
+        /*
+         * if config sync interval is greater than lastUpdate interval and the
+         * config source did not change than return false
+         */
+        if (!isConfigChanged()
+                && mbean.getConfig().getConfigSyncInterval().toMillis() > (System.currentTimeMillis() - lastUpdateTimeStamp)) {
             try {
                 // sleep for 2s before checking again.
                 Thread.sleep(2000);
@@ -48,7 +75,7 @@ public class ConfigLoaderWorker implements Worker<Object> {
         }
 
         // get all ConfigManager vms and create Update Workers for the new ones
-        for (ConfigManagerJvm vm : ConfigManagerJvm.find()) {
+        for (ConfigManagerJvm vm : discovery.refresh()) {
             try {
                 if (!vms.containsKey(vm.getObjectName().getCanonicalName())) {
                     UpdateVmWorker worker = new UpdateVmWorker(mbean, vm);
@@ -74,6 +101,22 @@ public class ConfigLoaderWorker implements Worker<Object> {
         return false;
     }
 
+    /**
+     * @return true if the config source was reloaded since the last call
+     */
+    private boolean isConfigChanged() {
+        try {
+            long version = mbean.getConfigVersion();
+            if (version != configVersion) {
+                configVersion = version;
+                return true;
+            }
+        } catch (ConfigException e) {
+            logger.debug("Failed to check config source for changes", e);
+        }
+        return false;
+    }
+
     @Override
     public Exception getCause() {
         return cause;
@@ -1,12 +1,13 @@
 package org.commons.jconfig.configloader;
 
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.Reader;
 import java.io.StringWriter;
 import java.io.Writer;
+import java.nio.charset.Charset;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -19,6 +20,7 @@ import org.apache.http.client.methods.HttpGet;
 import org.apache.http.impl.client.DefaultHttpClient;
 import org.apache.http.util.EntityUtils;
 import org.apache.log4j.Logger;
+import org.commons.jconfig.internal.ConfigFileSource;
 import org.commons.jconfig.internal.jmx.VirtualMachineException;
 
 import com.google.gson.Gson;
@@ -26,6 +28,7 @@ import com.google.gson.GsonBuilder;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
 import com.google.gson.JsonParser;
 
 /**
@@ -50,6 +53,7 @@ public class ConfigMerger {
     private final static Logger logger = Logger.getLogger(ConfigMerger.class);
     private final ConfigLoaderConfig configLoaderConfig;
     private final HttpClient httpClient;
+    private static final Charset UTF8 = Charset.forName("UTF-8");
     private final JsonParser parser = new JsonParser();
     // private int configHashCode = 0;
     private final Map<String, Integer> configHashCode = new HashMap<String, Integer>();
@@ -208,12 +212,7 @@ public class ConfigMerger {
             File fileEntry = new File(configLoaderConfig.getConfigPath()
                     + element.getAsString());
             if (!fileEntry.isDirectory() && fileEntry.canRead()) {
-                InputStream instream = new FileInputStream(fileEntry);
-
-                StringWriter writer = new StringWriter();
-                IOUtils.copy(instream, writer, "UTF-8");
-                String jsonString = writer.toString();
-                JsonElement localConf = parser.parse(jsonString);
+                JsonElement localConf = parseFile(fileEntry);
                 if (localConf.isJsonObject()) {
                     for (Map.Entry<String, JsonElement> applicationConfig : localConf
                             .getAsJsonObject().entrySet()) {
@@ -238,7 +237,7 @@ public class ConfigMerger {
                                     logger.info("Config value changed for module: "
                                             + elem.getKey()
                                             + " and configLoaderConfig value is: "
-                                            + jsonString);
+                                            + elem.getValue());
                                 }
                                 mergedConf.add(elem.getKey(), elem.getValue());
                             }
@@ -277,11 +276,11 @@ public class ConfigMerger {
                     "Error reading config_file_list file from path "
                             + configLoaderConfig.getConfigPath());
         }
-        InputStream fileListStream = new FileInputStream(config_file_list);
-        StringWriter writer = new StringWriter();
-        IOUtils.copy(fileListStream, writer, "UTF-8");
-        String jsonString = writer.toString();
-        JsonObject localConf = (JsonObject) parser.parse(jsonString);
+        JsonElement fileList = parseFile(config_file_list);
+        if (!fileList.isJsonObject()) {
+            throw new IOException("Invalid config_file_list.json format.");
+        }
+        JsonObject localConf = fileList.getAsJsonObject();
         if (localConf.has("files")) {
             listOfConfigResources = localConf.get("files").getAsJsonArray();
         } else {
@@ -291,6 +290,24 @@ public class ConfigMerger {
         return listOfConfigResources;
     }
 
+    /**
+     * Parses a json file without copying it to a string first
+     * 
+     * @param file
+     * @return parsed content
+     * @throws IOException
+     */
+    private JsonElement parseFile(final File file) throws IOException {
+        Reader reader = ConfigFileSource.openReader(file, UTF8);
+        try {
+            return parser.parse(reader);
+        } catch (JsonParseException e) {
+            throw new IOException("Invalid json format for file " + file, e);
+        } finally {
+            reader.close();
+        }
+    }
+
     /**
      * @param coater
      * @throws IOException
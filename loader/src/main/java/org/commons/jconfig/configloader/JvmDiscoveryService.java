@@ -0,0 +1,289 @@
+package org.commons.jconfig.configloader;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
+import javax.management.remote.JMXConnector;
+
+import org.apache.log4j.Logger;
+import org.commons.jconfig.config.ConfigRuntimeException;
+import org.commons.jconfig.internal.jmx.ConfigManagerJvm;
+import org.commons.jconfig.internal.jmx.JmxConnectorPool;
+import org.commons.jconfig.internal.jmx.VirtualMachineException;
+
+import com.sun.tools.attach.VirtualMachineDescriptor;
+
+/**
+ * Keeps track of the ConfigManager jvms running on this host.
+ *
+ * Listing the local jvms only reads their perf data files, attaching to them
+ * is what costs. A refresh attaches only to jvms that appeared since the
+ * previous one. Jvms without a ConfigManager MBean are probed on every
+ * refresh during the jvm probe grace period after they appear, ConfigManager
+ * registers its MBean some time after the jvm starts. Older jvms without one
+ * are remembered and probed again only after the jvm probe interval. Jvms with a ConfigManager are
+ * queried over their pooled connector, see {@link JmxConnectorPool}, and the
+ * pool records the jvm of each ConfigManager MBean found.
+ *
+ * Listeners are told about ConfigManager MBeans that appear and disappear.
+ */
+public class JvmDiscoveryService {
+
+    /**
+     * Receives the changes found by {@link JvmDiscoveryService#refresh()}
+     */
+    public interface Listener {
+        /**
+         * @param vm
+         *            ConfigManager found in a new or already known jvm
+         */
+        void added(ConfigManagerJvm vm);
+
+        /**
+         * @param vm
+         *            ConfigManager no longer registered, or whose jvm exited
+         */
+        void removed(ConfigManagerJvm vm);
+    }
+
+    private static final Logger logger = Logger.getLogger(JvmDiscoveryService.class);
+    private static final long DEFAULT_PROBE_INTERVAL = 5 * 60 * 1000L;
+    private static final long DEFAULT_PROBE_GRACE_PERIOD = 2 * 60 * 1000L;
+
+    private final ConfigLoaderConfig config;
+    private final JmxConnectorPool pool;
+    private final ObjectName managerPattern;
+    private final List<Listener> listeners = new CopyOnWriteArrayList<Listener>();
+
+    /** vm id to the ConfigManager MBeans registered in it */
+    private final Map<String, Set<ObjectName>> managers = new HashMap<String, Set<ObjectName>>();
+    /** vm id of jvms without ConfigManager to the time they were probed */
+    private final Map<String, Long> probed = new HashMap<String, Long>();
+    /** vm id of the running jvms to the time they were first listed */
+    private final Map<String, Long> firstSeen = new HashMap<String, Long>();
+    /** descriptors of the last listing */
+    private final Map<String, VirtualMachineDescriptor> descriptors = new HashMap<String, VirtualMachineDescriptor>();
+
+    /**
+     * @param config
+     *            loader config, for the jvm probe interval
+     * @param pool
+     *            connectors to the jvms
+     */
+    public JvmDiscoveryService(final ConfigLoaderConfig config, final JmxConnectorPool pool) {
+        this.config = config;
+        this.pool = pool;
+        try {
+            managerPattern = new ObjectName(ConfigManagerJvm.CONFIG_MGR_MBEAN_SEARCH_PATTERN);
+        } catch (MalformedObjectNameException e) {
+            throw new ConfigRuntimeException("Fail to instantiate config manager object bean ", e);
+        }
+    }
+
+    public void addListener(final Listener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(final Listener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Updates the known ConfigManager jvms and notifies listeners of the
+     * changes.
+     *
+     * @return the ConfigManager jvms running, attached with their pooled
+     *         connector
+     */
+    public synchronized Set<ConfigManagerJvm> refresh() {
+        long now = currentTimeMillis();
+        long probeInterval = getProbeInterval();
+        long gracePeriod = getProbeGracePeriod();
+        Set<String> live = new HashSet<String>(listVmIds());
+
+        // jvms that exited
+        Iterator<Map.Entry<String, Set<ObjectName>>> known = managers.entrySet().iterator();
+        while (known.hasNext()) {
+            Map.Entry<String, Set<ObjectName>> entry = known.next();
+            if (!live.contains(entry.getKey())) {
+                known.remove();
+                for (ObjectName name : entry.getValue()) {
+                    fireRemoved(entry.getKey(), name);
+                }
+            }
+        }
+        probed.keySet().retainAll(live);
+        firstSeen.keySet().retainAll(live);
+        pool.retain(live);
+
+        Map<String, Set<ObjectName>> current = new LinkedHashMap<String, Set<ObjectName>>();
+        for (String vmId : live) {
+            Set<ObjectName> previous = managers.get(vmId);
+            Long probeTime = probed.get(vmId);
+            Long seenTime = firstSeen.get(vmId);
+            if (seenTime == null) {
+                firstSeen.put(vmId, Long.valueOf(now));
+            } else if (previous == null && probeTime != null && now - seenTime.longValue() >= gracePeriod
+                    && now - probeTime.longValue() < probeInterval) {
+                continue;
+            }
+            Set<ObjectName> names;
+            try {
+                names = queryManagers(vmId);
+            } catch (VirtualMachineException e) {
+                logger.debug("Fail probing jvm " + vmId, e);
+                names = null;
+            } catch (IOException e) {
+                logger.debug("Fail probing jvm " + vmId, e);
+                pool.evict(vmId);
+                names = null;
+            }
+            if (names == null) {
+                // not reachable, keep what is known and retry on the next refresh
+                if (previous != null) {
+                    current.put(vmId, previous);
+                }
+                continue;
+            }
+            if (names.isEmpty()) {
+                // not a config manager jvm, do not keep a connection to it
+                probed.put(vmId, Long.valueOf(now));
+                pool.evict(vmId);
+            } else {
+                probed.remove(vmId);
+                current.put(vmId, names);
+            }
+            Set<ObjectName> before = previous == null ? Collections.<ObjectName> emptySet() : previous;
+            for (ObjectName name : before) {
+                if (!names.contains(name)) {
+                    fireRemoved(vmId, name);
+                }
+            }
+            for (ObjectName name : names) {
+                if (!before.contains(name)) {
+                    fireAdded(vmId, name);
+                }
+            }
+        }
+        managers.clear();
+        managers.putAll(current);
+
+        Set<ConfigManagerJvm> jvms = new HashSet<ConfigManagerJvm>();
+        for (Map.Entry<String, Set<ObjectName>> entry : managers.entrySet()) {
+            JMXConnector jmxc = getConnector(entry.getKey());
+            if (jmxc == null) {
+                continue;
+            }
+            for (ObjectName name : entry.getValue()) {
+                jvms.add(newJvm(entry.getKey(), name, jmxc));
+            }
+        }
+        return jvms;
+    }
+
+    /**
+     * @return ids of the vms with a known ConfigManager
+     */
+    public synchronized Set<String> getManagerVmIds() {
+        return new HashSet<String>(managers.keySet());
+    }
+
+    /**
+     * @return ids of the running jvms
+     */
+    protected Collection<String> listVmIds() {
+        descriptors.clear();
+        for (VirtualMachineDescriptor vmd : com.sun.tools.attach.VirtualMachine.list()) {
+            descriptors.put(vmd.id(), vmd);
+        }
+        return new ArrayList<String>(descriptors.keySet());
+    }
+
+    /**
+     * @param vmId
+     * @return names of the ConfigManager MBeans registered in the jvm
+     * @throws VirtualMachineException
+     *             if attaching to the jvm failed
+     * @throws IOException
+     *             if the query failed
+     */
+    protected Set<ObjectName> queryManagers(final String vmId) throws VirtualMachineException, IOException {
+        if (pool.get(vmId) == null) {
+            VirtualMachineDescriptor vmd = descriptors.get(vmId);
+            if (vmd == null) {
+                throw new VirtualMachineException("Unknown jvm " + vmId);
+            }
+            pool.get(vmd);
+        }
+        return pool.call(vmId, new JmxConnectorPool.Call<Set<ObjectName>>() {
+            @Override
+            public Set<ObjectName> call(final JMXConnector jmxc) throws IOException {
+                return new TreeSet<ObjectName>(jmxc.getMBeanServerConnection().queryNames(managerPattern, null));
+            }
+        });
+    }
+
+    /**
+     * @param vmId
+     * @return pooled connector of the jvm, or null if there is none
+     */
+    protected JMXConnector getConnector(final String vmId) {
+        return pool.get(vmId);
+    }
+
+    protected long currentTimeMillis() {
+        return System.currentTimeMillis();
+    }
+
+    private long getProbeInterval() {
+        if (config == null || config.getJvmProbeInterval() == null) {
+            return DEFAULT_PROBE_INTERVAL;
+        }
+        return config.getJvmProbeInterval().toMillis();
+    }
+
+    private long getProbeGracePeriod() {
+        if (config == null || config.getJvmProbeGracePeriod() == null) {
+            return DEFAULT_PROBE_GRACE_PERIOD;
+        }
+        return config.getJvmProbeGracePeriod().toMillis();
+    }
+
+    private static ConfigManagerJvm newJvm(final String vmId, final ObjectName name, final JMXConnector jmxc) {
+        ConfigManagerJvm vm = new ConfigManagerJvm(name);
+        vm.setVmId(vmId);
+        if (jmxc != null) {
+            vm.setPooledJMXConnector(jmxc);
+        }
+        return vm;
+    }
+
+    private void fireAdded(final String vmId, final ObjectName name) {
+        logger.info("Found config manager " + name + " in jvm " + vmId);
+        pool.putManager(name, vmId);
+        for (Listener listener : listeners) {
+            listener.added(newJvm(vmId, name, getConnector(vmId)));
+        }
+    }
+
+    private void fireRemoved(final String vmId, final ObjectName name) {
+        logger.info("Config manager " + name + " in jvm " + vmId + " is gone");
+        pool.removeManager(name, vmId);
+        for (Listener listener : listeners) {
+            listener.removed(newJvm(vmId, name, null));
+        }
+    }
+}
@@ -16,7 +16,13 @@ import org.commons.jconfig.internal.jmx.VirtualMachineException;
 /**
  * Checks version of config from different sources and compares it ConfigManager
  * JVM. If version does not matches, it pumps in new value and flips the cache
- * at ConfigManager.
+ * at ConfigManager.<br>
+ * <br>
+ * The ConfigManager is asked for its version only until configs were loaded
+ * into it once; after that, configs are pushed only when the hash of the
+ * application configs changes. Configs are pushed as one versioned snapshot
+ * that the ConfigManager swaps in atomically, see
+ * {@link ConfigLoaderJmx#loadAppSnapshot}.
  * 
  * @author jaikit
  * 
@@ -52,22 +58,38 @@ public class UpdateVmWorker implements Worker<Object> {
     @Override
     public boolean execute() throws WorkerException {
         try {
-            String applicationName = managerMbean.getVMName();
+            String applicationName = managerVm.getObjectName().getKeyProperty(ConfigManagerJvm.APPNAME_KEY);
 
             int loaderConfigHashCode = loaderJmx.getAppConfigHash(managerVm, applicationName);
+            Integer loadedConfigHashCode = loaderJmx.getLoadedConfigHash(managerVm);
+            if (loadedConfigHashCode != null && loadedConfigHashCode.intValue() == loaderConfigHashCode) {
+                // nothing changed since the last load
+                return true;
+            }
             int managerConfigHashCode = managerMbean.getConfigHashCode();
             // since config manager is not uptodate load new values 
             if (loaderConfigHashCode != managerConfigHashCode) {
                 try {
                     logger.info("Loading application " + applicationName + " with new configs");
-                    loaderJmx.loadAppConfigs(managerVm.getObjectName(), true);
-                    managerMbean.flipCache();
-                    managerMbean.updateConfigHashCode(loaderConfigHashCode);
+                    ConfigLoaderJmx.SnapshotResult result = loaderJmx.loadAppSnapshot(managerVm.getObjectName(),
+                            loaderConfigHashCode);
+                    if (result == ConfigLoaderJmx.SnapshotResult.UNSUPPORTED) {
+                        // older ConfigManager, set the values and flip in separate calls
+                        loaderJmx.loadAppConfigs(managerVm.getObjectName(), true);
+                        managerMbean.flipCache();
+                        managerMbean.updateConfigHashCode(loaderConfigHashCode);
+                        result = ConfigLoaderJmx.SnapshotResult.APPLIED;
+                    }
+                    if (result == ConfigLoaderJmx.SnapshotResult.APPLIED) {
+                        loaderJmx.setLoadedConfigHash(managerVm, loaderConfigHashCode);
+                    }
                 } catch (VirtualMachineException e) {
                     throw new WorkerException(e);
                 } catch (ConfigException e) {
                     throw new WorkerException(e);
                 }
+            } else {
+                loaderJmx.setLoadedConfigHash(managerVm, loaderConfigHashCode);
             }
         } catch (WorkerException e) {
             cause = e;
@@ -60,6 +60,9 @@ public class AutoConf  {
      *  unreadable).  Zero if we've never seen the file. */
     private final AtomicLong fileLastModifiedTimeRef = new AtomicLong(0);
 
+    /** Incremented each time the clusters.conf file is loaded. */
+    private final AtomicLong versionRef = new AtomicLong(0);
+
     /**
      * 
      */
@@ -123,6 +126,22 @@ public class AutoConf  {
         return modNode;
     }
 
+    /**
+     * Version of the conf dictionary. Checks the conf file for changes now,
+     * regardless of the config sync interval; this only costs a file stat
+     * when the file did not change.
+     * 
+     * @return  a number that changes each time the conf file is reloaded
+     * @throws  ConfigException  if clusters.conf
+     *          does not exist, or cannot be parsed.
+     */
+    public long getVersion() throws ConfigException
+    {
+        checkFile(true);
+        getConf();
+        return versionRef.get();
+    }
+
     /**
      * @return  The current conf dictionary.  Never null.
      * @throws Exception
@@ -130,17 +149,38 @@ public class AutoConf  {
      *          does not exist, or cannot be parsed.
      */
     public JsonNode getConf() throws ConfigException
+    {
+        checkFile(false);
+
+        // Return current conf.  Throw if none.
+        JsonNode conf = confRef.get();
+        if (conf == null) {
+            throw new ConfigException("AutoConf file (" + config.getConfigFileName() + ") is not loaded");
+        }
+
+        return conf;
+    }
+
+    /**
+     * Reloads the conf file if it changed on disk.
+     * 
+     * @param force
+     *            if false, the file is checked at most once per config sync
+     *            interval
+     * @throws ConfigException
+     */
+    private void checkFile(final boolean force) throws ConfigException
     {
         // If we should check for a new conf file,
         long now = System.currentTimeMillis();
-        if (now > nextCheckTimeRef.get())
+        if (force || now > nextCheckTimeRef.get())
         {
             // Synchronize and check again.  ("Double-checked locking".
             // We only need to lock when its time to check the file again.)
             synchronized (autoConfLock)
             {
                 // If we should check for a new conf file,
-                if (now > nextCheckTimeRef.get())
+                if (force || now > nextCheckTimeRef.get())
                 {
                     // Throw if conf file missing.
                     String filename = config.getConfigFileName();
@@ -160,6 +200,7 @@ public class AutoConf  {
                             confRef.set(mapper.readValue(f, JsonNode.class));
 
                             fileLastModifiedTimeRef.set(modTime);
+                            versionRef.incrementAndGet();
                         } catch (JsonParseException e) {
                             throw new ConfigException("Error parsing AutoConf file (" + filename + ")", e);
                         } catch (JsonMappingException e) {
@@ -174,13 +215,5 @@ public class AutoConf  {
                 }
             }
         }
-
-        // Return current conf.  Throw if none.
-        JsonNode conf = confRef.get();
-        if (conf == null) {
-            throw new ConfigException("AutoConf file (" + config.getConfigFileName() + ") is not loaded");
-        }
-
-        return conf;
     }
 }
\ No newline at end of file
@@ -0,0 +1,178 @@
+package org.commons.jconfig.configloader;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
+import javax.management.remote.JMXConnector;
+
+import org.commons.jconfig.internal.jmx.ConfigManagerJvm;
+import org.commons.jconfig.internal.jmx.JmxConnectorPool;
+import org.commons.jconfig.internal.jmx.VirtualMachineException;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class JvmDiscoveryServiceTest {
+
+    /**
+     * Discovery over a fake host, records the jvms it probes
+     */
+    private static class TestDiscovery extends JvmDiscoveryService {
+        private final List<String> vmIds = new ArrayList<String>();
+        private final Map<String, Set<ObjectName>> beans = new HashMap<String, Set<ObjectName>>();
+        private final List<String> queried = new ArrayList<String>();
+        private final JmxConnectorPool pool;
+        private long now = 0;
+
+        TestDiscovery() {
+            this(new JmxConnectorPool());
+        }
+
+        private TestDiscovery(final JmxConnectorPool pool) {
+            super(null, pool);
+            this.pool = pool;
+        }
+
+        @Override
+        protected Collection<String> listVmIds() {
+            return new ArrayList<String>(vmIds);
+        }
+
+        @Override
+        protected Set<ObjectName> queryManagers(final String vmId) throws VirtualMachineException, IOException {
+            queried.add(vmId);
+            Set<ObjectName> names = beans.get(vmId);
+            return names == null ? new HashSet<ObjectName>() : new HashSet<ObjectName>(names);
+        }
+
+        @Override
+        protected JMXConnector getConnector(final String vmId) {
+            return null;
+        }
+
+        @Override
+        protected long currentTimeMillis() {
+            return now;
+        }
+    }
+
+    /**
+     * Records the events as "+name" and "-name"
+     */
+    private static class RecordingListener implements JvmDiscoveryService.Listener {
+        private final List<String> events = new ArrayList<String>();
+
+        @Override
+        public void added(final ConfigManagerJvm vm) {
+            events.add("+" + vm.getObjectName().getKeyProperty("appName"));
+        }
+
+        @Override
+        public void removed(final ConfigManagerJvm vm) {
+            events.add("-" + vm.getObjectName().getKeyProperty("appName"));
+        }
+    }
+
+    private static ObjectName manager(final String name) throws MalformedObjectNameException {
+        return new ObjectName(ConfigManagerJvm.CONFIG_MGR_MBEAN_NAME + name);
+    }
+
+    @Test
+    public void testOnlyNewJvmsAreProbed() throws MalformedObjectNameException {
+        TestDiscovery discovery = new TestDiscovery();
+        discovery.vmIds.addAll(Arrays.asList("1", "2"));
+        discovery.beans.put("1", Collections.singleton(manager("app1")));
+
+        discovery.refresh();
+        Assert.assertEquals(new HashSet<String>(discovery.queried), new HashSet<String>(Arrays.asList("1", "2")));
+        Assert.assertEquals(discovery.getManagerVmIds(), Collections.singleton("1"));
+
+        // the jvm without ConfigManager is not probed again once older than
+        // the grace period, the new one is
+        discovery.queried.clear();
+        discovery.vmIds.add("3");
+        discovery.now = 2 * 60 * 1000L;
+        discovery.refresh();
+        Assert.assertEquals(new HashSet<String>(discovery.queried), new HashSet<String>(Arrays.asList("1", "3")));
+    }
+
+    @Test
+    public void testJvmsWithoutManagerAreProbedAfterInterval() throws MalformedObjectNameException {
+        TestDiscovery discovery = new TestDiscovery();
+        RecordingListener listener = new RecordingListener();
+        discovery.addListener(listener);
+        discovery.vmIds.add("1");
+
+        discovery.refresh();
+        Assert.assertTrue(discovery.getManagerVmIds().isEmpty());
+
+        // registered its ConfigManager after the first probe
+        discovery.beans.put("1", Collections.singleton(manager("late")));
+        discovery.now = 5 * 60 * 1000L - 1;
+        discovery.refresh();
+        Assert.assertTrue(discovery.getManagerVmIds().isEmpty());
+
+        discovery.now = 5 * 60 * 1000L;
+        discovery.refresh();
+        Assert.assertEquals(discovery.getManagerVmIds(), Collections.singleton("1"));
+        Assert.assertEquals(listener.events, Collections.singletonList("+late"));
+    }
+
+    @Test
+    public void testNewJvmsAreProbedOnEveryRefresh() throws MalformedObjectNameException {
+        TestDiscovery discovery = new TestDiscovery();
+        RecordingListener listener = new RecordingListener();
+        discovery.addListener(listener);
+        discovery.vmIds.add("1");
+
+        // the jvm is listed before its ConfigManager registers
+        discovery.refresh();
+        Assert.assertTrue(discovery.getManagerVmIds().isEmpty());
+
+        discovery.beans.put("1", Collections.singleton(manager("starting")));
+        discovery.now = 15 * 1000L;
+        discovery.refresh();
+        Assert.assertEquals(discovery.getManagerVmIds(), Collections.singleton("1"));
+        Assert.assertEquals(listener.events, Collections.singletonList("+starting"));
+    }
+
+    @Test
+    public void testListenersSeeChanges() throws MalformedObjectNameException {
+        TestDiscovery discovery = new TestDiscovery();
+        RecordingListener listener = new RecordingListener();
+        discovery.addListener(listener);
+        discovery.vmIds.addAll(Arrays.asList("1", "2"));
+        discovery.beans.put("1", Collections.singleton(manager("app1")));
+        discovery.beans.put("2", new HashSet<ObjectName>(Arrays.asList(manager("app2"), manager("app3"))));
+
+        discovery.refresh();
+        Collections.sort(listener.events);
+        Assert.assertEquals(listener.events, Arrays.asList("+app1", "+app2", "+app3"));
+        Assert.assertEquals(discovery.pool.getManagerVmId(manager("app3")), "2");
+
+        // nothing changed
+        listener.events.clear();
+        discovery.refresh();
+        Assert.assertTrue(listener.events.isEmpty());
+
+        // an MBean is unregistered, a jvm exits
+        discovery.beans.put("2", Collections.singleton(manager("app2")));
+        discovery.vmIds.remove("1");
+        discovery.refresh();
+        Collections.sort(listener.events);
+        Assert.assertEquals(listener.events, Arrays.asList("-app1", "-app3"));
+        Assert.assertEquals(discovery.getManagerVmIds(), Collections.singleton("2"));
+        Assert.assertNull(discovery.pool.getManagerVmId(manager("app1")));
+        Assert.assertNull(discovery.pool.getManagerVmId(manager("app3")));
+        Assert.assertEquals(discovery.pool.getManagerVmId(manager("app2")), "2");
+    }
+}
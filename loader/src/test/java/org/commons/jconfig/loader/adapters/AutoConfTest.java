@@ -0,0 +1,47 @@
+package org.commons.jconfig.loader.adapters;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.concurrent.TimeUnit;
+
+import org.commons.jconfig.config.ConfigException;
+import org.commons.jconfig.configloader.ConfigLoaderConfig;
+import org.commons.jconfig.datatype.TimeValue;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class AutoConfTest {
+
+    private static void write(final File file, final String content) throws IOException {
+        Writer writer = new FileWriter(file);
+        try {
+            writer.write(content);
+        } finally {
+            writer.close();
+        }
+    }
+
+    @Test
+    public void testVersionChangesOnlyWhenFileChanges() throws IOException, ConfigException {
+        File file = File.createTempFile("autoconf", ".conf");
+        file.deleteOnExit();
+        write(file, "{ \"Modules\": { \"Foo\": { \"a\": 1 } } }");
+
+        ConfigLoaderConfig config = new ConfigLoaderConfig();
+        config.setConfigFileName(file.getPath());
+        // long sync interval, getVersion must check the file regardless
+        config.setConfigSyncInterval(new TimeValue(1, TimeUnit.HOURS));
+        AutoConf autoconf = new AutoConf(config);
+
+        long version = autoconf.getVersion();
+        Assert.assertEquals(autoconf.getModule("Modules", "Foo").get("a").getIntValue(), 1);
+        Assert.assertEquals(autoconf.getVersion(), version);
+
+        write(file, "{ \"Modules\": { \"Foo\": { \"a\": 2 } } }");
+        Assert.assertTrue(file.setLastModified(file.lastModified() + 2000));
+        Assert.assertTrue(autoconf.getVersion() != version);
+        Assert.assertEquals(autoconf.getModule("Modules", "Foo").get("a").getIntValue(), 2);
+    }
+}
@@ -0,0 +1,103 @@
+package org.commons.jconfig.config;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * Records the config classes that are active, i.e. registered with JMX and
+ * with their resource file loaded. Every class is activated once, concurrent
+ * callers wait for the activation in progress.
+ */
+@ThreadSafe
+final class ConfigClassRegistry {
+
+    private final ConcurrentHashMap<Class<?>, CompletableFuture<Void>> activations = new ConcurrentHashMap<Class<?>, CompletableFuture<Void>>();
+
+    /**
+     * @param configClass
+     * @return true if configClass was activated
+     */
+    boolean isActive(@Nonnull final Class<?> configClass) {
+        CompletableFuture<Void> activation = activations.get(configClass);
+        return activation != null && activation.isDone() && !activation.isCompletedExceptionally();
+    }
+
+    /**
+     * Runs activation for configClass unless configClass is active or being
+     * activated. A failed activation is not recorded, the next call retries.
+     *
+     * @param configClass
+     * @param activation
+     * @return true if this call activated configClass
+     * @throws RuntimeException
+     *             thrown by activation
+     */
+    boolean activate(@Nonnull final Class<?> configClass, @Nonnull final Runnable activation) {
+        CompletableFuture<Void> created = new CompletableFuture<Void>();
+        CompletableFuture<Void> existing = activations.putIfAbsent(configClass, created);
+        if (existing != null) {
+            await(existing);
+            return false;
+        }
+        try {
+            activation.run();
+            created.complete(null);
+            return true;
+        } catch (RuntimeException e) {
+            activations.remove(configClass, created);
+            created.completeExceptionally(e);
+            throw e;
+        } catch (Error e) {
+            activations.remove(configClass, created);
+            created.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    private void await(final CompletableFuture<Void> activation) {
+        boolean interrupted = false;
+        try {
+            while (true) {
+                try {
+                    activation.get();
+                    return;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new ConfigRuntimeException("Config class activation failed:", cause);
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * @return names of the active config classes
+     */
+    @Nonnull
+    List<String> getActiveClassNames() {
+        List<String> names = new ArrayList<String>();
+        for (Map.Entry<Class<?>, CompletableFuture<Void>> entry : activations.entrySet()) {
+            if (entry.getValue().isDone() && !entry.getValue().isCompletedExceptionally()) {
+                names.add(entry.getKey().getName());
+            }
+        }
+        return names;
+    }
+}
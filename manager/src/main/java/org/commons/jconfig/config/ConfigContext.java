@@ -4,6 +4,7 @@ import java.util.HashMap;
 import java.util.Map;
 import java.util.SortedSet;
 import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Config Context is a key value store used to retrieve key value settings from
@@ -97,6 +98,7 @@ public class ConfigContext {
             if (uniqueId != null) {
                 uniqueId = null;
             }
+            configKeys = null;
         }
     }
 
@@ -165,4 +167,44 @@ public class ConfigContext {
         return temp.toString();
     }
 
+    /** config object keys memoized per config class, reset on put */
+    private volatile ConcurrentHashMap<Class<?>, ConfigObjectKey> configKeys = null;
+
+    /**
+     * Returns the ConfigManager cache key for a config class in this context.
+     * The key is computed once per config class and context types, and reused
+     * until a new value is put in the context.
+     * 
+     * @param configClass
+     * @param contextSet
+     *            context types of configClass
+     * @return config object key
+     */
+    ConfigObjectKey getConfigKey(final Class<?> configClass, final SortedSet<String> contextSet) {
+        ConcurrentHashMap<Class<?>, ConfigObjectKey> keys = configKeys;
+        if (keys != null) {
+            ConfigObjectKey key = keys.get(configClass);
+            if (key != null && key.isProjectionOf(contextSet)) {
+                return key;
+            }
+        }
+        synchronized (dict) {
+            ConfigObjectKey key = ConfigObjectKey.project(configClass, contextSet, this);
+            if (configKeys == null) {
+                configKeys = new ConcurrentHashMap<Class<?>, ConfigObjectKey>(4);
+            }
+            configKeys.put(configClass, key);
+            return key;
+        }
+    }
+
+    /**
+     * @param key
+     * @return the context value as a string, or null if key is not in the
+     *         context
+     */
+    String lookup(final String key) {
+        Object value = dict.get(key);
+        return value == null ? null : value.toString();
+    }
 }
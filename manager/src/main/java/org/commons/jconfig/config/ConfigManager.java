@@ -14,6 +14,7 @@
  */
 package org.commons.jconfig.config;
 
+import java.io.File;
 import java.lang.annotation.Annotation;
 
 import java.lang.management.ManagementFactory;
@@ -22,10 +23,24 @@ import java.lang.reflect.Method;
 import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
 import java.util.SortedSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
 
 import javax.annotation.Nonnull;
 import javax.management.InstanceAlreadyExistsException;
@@ -43,24 +58,28 @@ import org.apache.log4j.Logger;
 import org.commons.jconfig.annotations.Config;
 import org.commons.jconfig.annotations.ConfigGet;
 import org.commons.jconfig.annotations.ConfigResource;
-import org.commons.jconfig.annotations.ConfigResourceId;
 import org.commons.jconfig.annotations.ConfigSet;
-import org.commons.jconfig.datatype.ByteValue;
-import org.commons.jconfig.datatype.TimeValue;
 import org.commons.jconfig.datatype.TypeFormatException;
 import org.commons.jconfig.datatype.ValueType;
-import org.commons.jconfig.internal.ConcurrentLRUCache;
+import org.commons.jconfig.internal.ConcurrentTinyLFUCache;
 import org.commons.jconfig.internal.ConfigAdapter;
 import org.commons.jconfig.internal.ConfigAdapterJson;
 import org.commons.jconfig.internal.ConfigAdapterProperties;
+import org.commons.jconfig.internal.ConfigBindingPlan;
+import org.commons.jconfig.internal.ConfigIndexProcessor;
 import org.commons.jconfig.internal.ConfigManagerCache;
+import org.commons.jconfig.internal.ConfigValue;
+import org.commons.jconfig.internal.ExecutorThreadFactory;
+import org.commons.jconfig.internal.MethodAccessor;
+import org.commons.jconfig.internal.MethodAccessors;
 import org.commons.jconfig.internal.ScanClassPath;
+import org.commons.jconfig.internal.SingleFlight;
+import org.commons.jconfig.internal.ValueParser;
 import org.commons.jconfig.internal.jmx.ConfigManagerJmx;
 import org.commons.jconfig.internal.jmx.ConfigManagerJvm;
 import org.commons.jconfig.internal.jmx.JmxUtil;
 import org.commons.jconfig.internal.jmx.LoadAppConfigsNotification;
 
-import com.google.gson.JsonParser;
 
 /**
  * ConfigManager class is used to create a instance of the config class loaded
@@ -100,49 +119,252 @@ public enum ConfigManager {
     private final Logger logger = Logger.getLogger(ConfigManager.class);
 
     /** Config can be registered to JMX only once. This set verifies if config is already registered */
-    private final HashSet<String> registerConfigCache = new HashSet<String>();
+    private final Set<String> registerConfigCache = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
 
     /**
-     * cache of fetched config objects. Protect with Atomic Reference. Multiple
-     * readers (getConfig) Multiple writers (LoadAppConfigsNotification and
-     * getConfig). 80000 threads, 200 config instances per thread = 16000000
-     * million.
+     * Config object with the module generation it was built from.
      */
-    private final ConcurrentLRUCache<String, Object> configObjectsCache = new ConcurrentLRUCache<String, Object>(10000);
+    private static final class CachedConfig {
+        private final Object config;
+        private final long generation;
 
-    private final Object waitLoaderLock = new Object();
-    private volatile boolean isLoaderDone = false;
+        CachedConfig(final Object config, final long generation) {
+            this.config = config;
+            this.generation = generation;
+        }
+    }
+
+    /**
+     * cache of fetched config objects. Multiple readers (getConfig) Multiple
+     * writers (getConfig). Entries built from an older module generation are
+     * rebuilt on access, so flipping the config cache does not clear it.
+     * 80000 threads, 200 config instances per thread = 16000000 million.
+     */
+    private final ConcurrentTinyLFUCache<ConfigObjectKey, CachedConfig> configObjectsCache = new ConcurrentTinyLFUCache<ConfigObjectKey, CachedConfig>(
+            10000);
+
+    /** in flight config object builds */
+    private final SingleFlight<ConfigObjectKey, CachedConfig> configBuilds = new SingleFlight<ConfigObjectKey, CachedConfig>();
+
+    /** Fast path flag, set once initialization completed */
     private volatile boolean configManagerInitialized = false;
 
-    private final Object initLock = new Object();
-    private volatile int initCount = 0;
+    /**
+     * Initialization in progress or completed, null before the first
+     * initialization or after a failed one so the next call retries.
+     */
+    private final AtomicReference<CompletableFuture<Void>> initFuture = new AtomicReference<CompletableFuture<Void>>();
+
+    /** Completed and replaced by setLoadingDone on the next flip of the cache */
+    private final AtomicReference<CompletableFuture<Void>> nextFlip = new AtomicReference<CompletableFuture<Void>>(
+            new CompletableFuture<Void>());
+
+    /** Config classes registered with JMX and loaded */
+    private final ConfigClassRegistry configClasses = new ConfigClassRegistry();
+
+    /** Activate config classes on first use, see ConfigManagerConfig */
+    private volatile boolean lazyActivation = false;
 
     private Set<Class<?>> annotatedClazzez = null;
 
+    /** Binding plans of config classes, built once per class */
+    private final ConcurrentHashMap<Class<?>, ConfigBindingPlan> bindingPlans = new ConcurrentHashMap<Class<?>, ConfigBindingPlan>();
+
+
+    /** system property to ignore the config class index and always scan the classpath */
+    public static final String IGNORE_INDEX_PROPERTY = "jconfig.index.ignore";
 
     /**
-     * Generate a set of annotated classes by scanning all path's in classpath
+     * Generate a set of annotated classes from the config class indexes, and by
+     * scanning the path's in classpath without an index
      */
     private void scanAnnotatedClasses() {
         long start = System.nanoTime();
         ScanClassPath<Config> scanClasses = new ScanClassPath<Config>(Config.class, Arrays.asList("org.commons.jconfig."));
-        annotatedClazzez  = scanClasses.scanAnnotatedClasses();
+        if (Boolean.getBoolean(IGNORE_INDEX_PROPERTY)) {
+            annotatedClazzez = scanClasses.scanAnnotatedClasses();
+        } else {
+            // index written at compile time by ConfigIndexProcessor, roots
+            // without one are scanned
+            annotatedClazzez = scanClasses.scanAnnotatedClasses(ConfigIndexProcessor.INDEX_RESOURCE);
+        }
 
-        for (Class<?> configClass : annotatedClazzez) {
-            try {
-                // TODO: maybe this is exposed to early.
-                if (!registerConfigCache.contains(configClass.getName())) {
-                    JmxUtil.registerConfigObject(this, configClass, getAppName());
-                    registerConfigCache.add(configClass.getName());
+        logger.info("ScanClassPath.scanAnnotatedClasses: " + ((System.nanoTime()- start)/1000000) + " ms");
+    }
+
+    /**
+     * Registers the config MBean of configClass and builds its binding plan
+     * upfront, so the first getConfig does not pay for it.
+     */
+    private void registerConfigClass(final Class<?> configClass) {
+        try {
+            // TODO: maybe this is exposed to early.
+            if (registerConfigCache.add(configClass.getName())) {
+                JmxUtil.registerConfigObject(this, configClass, getAppName());
+            }
+            logger.info("Registered config " + configClass.getName() + " to JMX");
+        } catch (JMException e) {
+            throw new ConfigRuntimeException("ConfigManager JMX fatal exception:", e);
+        } catch (InvalidTargetObjectTypeException e) {
+            throw new ConfigRuntimeException("ConfigManager JMX fatal exception:", e);
+        }
+        try {
+            getBindingPlan(configClass);
+        } catch (RuntimeException e) {
+            logger.error("Invalid config class " + configClass.getName(), e);
+        }
+    }
+
+    /**
+     * Activates configClass in lazy mode: registers its config MBean and loads
+     * its values, from its resource file or from the ConfigLoader. Runs once
+     * per class.
+     * 
+     * @param configClass
+     * @return true if this call activated configClass
+     */
+    private boolean activate(final Class<?> configClass) {
+        return configClasses.activate(configClass, new Runnable() {
+            @Override
+            public void run() {
+                registerConfigClass(configClass);
+                if (lazyActivation && !internalConfig.getLoadFrom().equals("JMX")) {
+                    ConfigManagerCache staged = new ConfigManagerCache(ConfigManager.this);
+                    loadConfigResource(configClass, staged);
+                    configManagerCache.publish(staged);
                 }
-                logger.info("Registered config " + configClass.getName() + " to JMX");
-            } catch (JMException e) {
-                throw new ConfigRuntimeException("ConfigManager JMX fatal exception:", e);
-            } catch (InvalidTargetObjectTypeException e) {
-                throw new ConfigRuntimeException("ConfigManager JMX fatal exception:", e);
+                // in JMX mode the ConfigLoader pushes the values of the new config
+                // MBean on its next sync. Until then getConfig builds objects with
+                // the values already readable or the defaults, the pushed values
+                // have a new module generation so the objects are built again.
             }
+        });
+    }
+
+    /**
+     * Loads the @ConfigResource file of configClass into cache
+     */
+    private void loadConfigResource(final Class<?> configClass, final ConfigManagerCache cache) {
+        ConfigResource anno = configClass.getAnnotation(ConfigResource.class);
+        if (anno != null && anno.name() != null) {
+            loadConfigResource(anno.name(), cache);
+        }
+    }
+
+    /**
+     * Loads the config file uri into cache, or nothing if the file is invalid
+     */
+    private void loadConfigResource(final String uri, final ConfigManagerCache cache) {
+        ConfigAdapter<String> configAdapter = null;
+        // the json adapter streams modules as it reads them
+        ConfigManagerCache staged = new ConfigManagerCache(this);
+        try {
+            if (uri.toLowerCase().endsWith(".json")) {
+                configAdapter = new ConfigAdapterJson(uri, UTF8, internalConfig);
+                configAdapter.loadValue(staged);
+            } else if (uri.toLowerCase().endsWith(".properties")) {
+                configAdapter = new ConfigAdapterProperties(uri, UTF8, internalConfig);
+                configAdapter.loadValue(staged);
+            }
+            cache.merge(staged);
+        } catch (ConfigException e) {
+            /* Catch here because we do not want to fail initialize if one config is bad */
+            logger.error("Error loading config " + uri + " ", e);
         }
-        logger.info("ScanClassPath.scanAnnotatedClasses: " + ((System.nanoTime()- start)/1000000) + " ms");
+    }
+
+    /**
+     * Loads the @ConfigResource files of configClasses into cache. Every file
+     * is parsed once, on a pool bounded by the number of processors, into its
+     * own staging cache. The staging caches are merged into cache in the order
+     * of configClasses, so values are the same as with a serial load.
+     */
+    private void loadConfigResources(final Collection<Class<?>> configClasses, final ConfigManagerCache cache) {
+        Set<String> uris = new LinkedHashSet<String>();
+        for (Class<?> configClass : configClasses) {
+            ConfigResource anno = configClass.getAnnotation(ConfigResource.class);
+            if (anno != null && anno.name() != null) {
+                uris.add(anno.name());
+            }
+        }
+        int threads = Math.min(uris.size(), Runtime.getRuntime().availableProcessors());
+        if (threads <= 1) {
+            for (String uri : uris) {
+                loadConfigResource(uri, cache);
+            }
+            return;
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads, new ExecutorThreadFactory(
+                "ConfigManagerLoad"));
+        try {
+            List<Future<ConfigManagerCache>> loads = new ArrayList<Future<ConfigManagerCache>>(uris.size());
+            for (final String uri : uris) {
+                loads.add(executor.submit(new Callable<ConfigManagerCache>() {
+                    @Override
+                    public ConfigManagerCache call() {
+                        ConfigManagerCache staged = new ConfigManagerCache(ConfigManager.this);
+                        loadConfigResource(uri, staged);
+                        return staged;
+                    }
+                }));
+            }
+            for (Future<ConfigManagerCache> load : loads) {
+                cache.merge(load.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ConfigRuntimeException("Interrupted while loading config files", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new ConfigRuntimeException("Failed to load config files", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Activates a config class in lazy mode, see
+     * {@link ConfigManagerConfig#getLazyActivation()}. Exposed through JMX,
+     * so a class can be activated before its first getConfig.
+     * 
+     * @param className
+     *            name of a @Config class
+     * @return true if the class was activated by this call, false if it was
+     *         already active or is not a @Config class
+     */
+    public boolean activateConfig(final String className) {
+        initialize();
+        Class<?> configClass = null;
+        for (Class<?> annotatedClass : annotatedClazzez) {
+            if (annotatedClass.getName().equals(className)) {
+                configClass = annotatedClass;
+                break;
+            }
+        }
+        if (configClass == null) {
+            try {
+                configClass = Class.forName(className, false, ConfigManager.class.getClassLoader());
+            } catch (ClassNotFoundException e) {
+                logger.warn("Unknown config class " + className);
+                return false;
+            }
+        }
+        if (configClass.getAnnotation(Config.class) == null) {
+            logger.warn("Class " + className + " is not annotated with @Config");
+            return false;
+        }
+        return activate(configClass);
+    }
+
+    /**
+     * @return names of the config classes registered with JMX and loaded
+     */
+    @Nonnull
+    public List<String> getActiveConfigs() {
+        return configClasses.getActiveClassNames();
     }
 
     /**
@@ -155,21 +377,64 @@ public enum ConfigManager {
         if (configManagerInitialized) {
             return;
         }
+        try {
+            startInitialize(false).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ConfigRuntimeException("ConfigManager JMX fatal exception:", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new ConfigRuntimeException("ConfigManager fatal exception:", cause);
+        }
+    }
 
-        synchronized (initLock) {
-            while (initCount != 0) {
-                if (configManagerInitialized) {
-                    return;
-                }
-                try {
-                    initLock.wait(500);
-                } catch (InterruptedException e) {
-                    throw new ConfigRuntimeException("ConfigManager JMX fatal exception:", e);
+    /**
+     * Starts the initialization if it is not started yet. Only one caller
+     * runs the initialization, the others get the same future.
+     * 
+     * @param async
+     *            run the initialization in a new daemon thread instead of the
+     *            calling thread
+     * @return future completed when ConfigManager is initialized
+     */
+    private CompletableFuture<Void> startInitialize(final boolean async) {
+        while (true) {
+            CompletableFuture<Void> future = initFuture.get();
+            if (future != null) {
+                return future;
+            }
+            final CompletableFuture<Void> created = new CompletableFuture<Void>();
+            if (initFuture.compareAndSet(null, created)) {
+                Runnable init = new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            doInitialize();
+                            configManagerInitialized = true;
+                            created.complete(null);
+                        } catch (Throwable e) {
+                            // allow the next call to retry
+                            initFuture.compareAndSet(created, null);
+                            created.completeExceptionally(e);
+                        }
+                    }
+                };
+                if (async) {
+                    new ExecutorThreadFactory("ConfigManagerInit").newThread(init).start();
+                } else {
+                    init.run();
                 }
+                return created;
             }
-            initCount++;
         }
+    }
 
+    private void doInitialize() {
         /* Register config manager bean if not registered yet. */
         try {
             ObjectName beanName = new ObjectName(ConfigManagerJvm.CONFIG_MGR_MBEAN_NAME + getAppName());
@@ -195,67 +460,76 @@ public enum ConfigManager {
             throw new ConfigRuntimeException("ConfigManager JMX fatal exception:", e);
         }
 
-        try {
-            getInternalConfig();
+        getInternalConfig();
 
-            logger.info("Resize config cache to " + internalConfig.getMaxCacheSize().intValue() + ".");
-            // resize cache to config value
-            configObjectsCache.setMaxSize(internalConfig.getMaxCacheSize().intValue());
+        logger.info("Resize config cache to " + internalConfig.getMaxCacheSize().intValue() + ".");
+        // resize cache to config value
+        configObjectsCache.setMaxSize(internalConfig.getMaxCacheSize().intValue());
 
-            if (annotatedClazzez == null) {
-                scanAnnotatedClasses();
-            }
+        if (annotatedClazzez == null) {
+            scanAnnotatedClasses();
+        }
 
-            if (internalConfig.getLoadFrom().equals("JMX")) {
-                isLoaderDone = false;
-                long endTime = System.currentTimeMillis() + internalConfig.getConfigLoaderSyncInterval().toMillis();
-                synchronized (waitLoaderLock) {
-                    try {
-                        logger.error("Waiting for ConfigLoader to set the values for "
-                                + internalConfig.getConfigLoaderSyncInterval().toSeconds() + "s");
-                        while (!isLoaderDone && (endTime > System.currentTimeMillis())) {
-                            waitLoaderLock.wait(500);
-                        }
-                    } catch (InterruptedException e) {
-                        Thread.interrupted();
-                        throw new ConfigRuntimeException("Failed to attach to ConfigLoader jvm: ", e);
-                    }
+        // warm before any config MBean is registered, the ConfigLoader pushes
+        // values only for registered configs
+        boolean warmed = internalConfig.getLoadFrom().equals("JMX") && loadSnapshot();
 
-                }
-                if (!isLoaderDone) {
-                    throw new ConfigRuntimeException("Failed to load config from ConfigLoader after "
-                            + internalConfig.getConfigLoaderSyncInterval());
-                }
+        lazyActivation = internalConfig.getLazyActivation().booleanValue();
+        if (lazyActivation) {
+            logger.info("Lazy activation of " + annotatedClazzez.size() + " config classes");
+            if (internalConfig.getLoadFrom().equals("JMX")) {
+                // no config MBean is registered yet, the ConfigLoader has nothing to load
+                return;
+            }
+            resetAndFlipCache();
+            return;
+        }
+        for (Class<?> configClass : annotatedClazzez) {
+            activate(configClass);
+        }
 
-            } else {
-                for (Class<?> configClass : annotatedClazzez) {
-                    ConfigResource anno = configClass.getAnnotation(ConfigResource.class);
-                    ConfigAdapter<String> configAdapter = null;
-                    if (anno != null) {
-                        String uri = anno.name();
-                        if (uri != null) {
-                            try {
-                                if (uri.toLowerCase().endsWith(".json")) {
-                                    configAdapter = new ConfigAdapterJson(uri, UTF8, internalConfig);
-                                    configAdapter.loadValue(configManagerCache);
-                                } else if (uri.toLowerCase().endsWith(".properties")) {
-                                    configAdapter = new ConfigAdapterProperties(uri, UTF8, internalConfig);
-                                    configAdapter.loadValue(configManagerCache);
-                                }
-                            } catch (ConfigException e) {
-                                /* Catch here because we do not want to fail initialize if one config is bad */
-                                logger.error("Error loading config " + uri + " ", e);
-                            }
-                        }
-                    }
-                }
-                //trigger flipping of cache
-                resetAndFlipCache();
+        if (warmed) {
+            logger.info("Using config snapshot until the ConfigLoader sets the values");
+        } else if (internalConfig.getLoadFrom().equals("JMX")) {
+            CompletableFuture<Void> loaded = nextFlip.get();
+            try {
+                logger.error("Waiting for ConfigLoader to set the values for "
+                        + internalConfig.getConfigLoaderSyncInterval().toSeconds() + "s");
+                loaded.get(internalConfig.getConfigLoaderSyncInterval().toMillis(), TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ConfigRuntimeException("Failed to attach to ConfigLoader jvm: ", e);
+            } catch (ExecutionException e) {
+                throw new ConfigRuntimeException("Failed to load config from ConfigLoader", e);
+            } catch (TimeoutException e) {
+                throw new ConfigRuntimeException("Failed to load config from ConfigLoader after "
+                        + internalConfig.getConfigLoaderSyncInterval());
             }
-            configManagerInitialized = true;
-        } finally {
-            initCount--;
+
+        } else {
+            loadConfigResources(annotatedClazzez, configManagerCache);
+            //trigger flipping of cache
+            resetAndFlipCache();
+        }
+    }
+
+    /**
+     * Loads the snapshot of the values last set by the ConfigLoader and saves
+     * a new snapshot on every flip from now on, see
+     * {@link ConfigManagerConfig#getSnapshotFile()}
+     * 
+     * @return true if a snapshot was loaded
+     */
+    private boolean loadSnapshot() {
+        String path = internalConfig.getSnapshotFile();
+        if (path == null || path.trim().isEmpty()) {
+            configManagerCache.setSnapshotFile(null);
+            return false;
         }
+        File file = new File(path.trim());
+        boolean loaded = configManagerCache.loadSnapshot(file);
+        configManagerCache.setSnapshotFile(file);
+        return loaded;
     }
 
     private String appName = "ConfigManager_" + System.nanoTime();
@@ -265,12 +539,12 @@ public enum ConfigManager {
     }
 
     /**
-     * LoadAppConfigsNotification succeeded
+     * LoadAppConfigsNotification succeeded. Config objects of modules that
+     * changed are rebuilt on their next getConfig.
      * 
      */
     public void resetAndFlipCache() {
         configManagerCache.flipCache();
-        configObjectsCache.clear();
         setLoadingDone();
     }
 
@@ -344,26 +618,77 @@ public enum ConfigManager {
     public <T> T getConfig(final Class<T> classDefinition, final ConfigContext context) throws KeyNotFound {
         // initialize on happens ounce
         initialize();
+        if (lazyActivation && !configClasses.isActive(classDefinition)) {
+            activate(classDefinition);
+        }
 
+        final long generation = configManagerCache.getGeneration(classDefinition);
         SortedSet<String> contextSet = configManagerCache.getContextTypes(classDefinition);
+        final ConfigObjectKey key = context.getConfigKey(classDefinition, contextSet);
+
+        // return cached entry if its module did not change since it was built
+        CachedConfig cached = configObjectsCache.get(key);
+        if (cached == null || cached.generation != generation) {
+            // only one thread builds the object, concurrent callers share it
+            cached = configBuilds.execute(key, new Callable<CachedConfig>() {
+                @Override
+                public CachedConfig call() {
+                    CachedConfig current = configObjectsCache.get(key);
+                    if (current != null && current.generation == generation) {
+                        // built by the previous flight
+                        return current;
+                    }
+                    current = new CachedConfig(newConfigObject(classDefinition, context), generation);
+                    configObjectsCache.put(key, current);
+                    return current;
+                }
+            });
+        }
+        return classDefinition.cast(cached.config);
+    }
 
-        // return cached entry
-        @SuppressWarnings("unchecked")
-        T config = (T) configObjectsCache.get(getConfigListEntryName(classDefinition, context, contextSet));
-        if (config != null) {
-            return config;
+    /**
+     * Asynchronous variant of {@link #getConfig(Class, ConfigContext)} for
+     * callers that must not block while ConfigManager is initializing. Once
+     * ConfigManager is initialized the returned future is already completed.
+     * 
+     * @param <T> the type of configuration object returned
+     * @param classDefinition the class definition for the desired configuration object
+     * @param context application-specific collection of configuration settings
+     * @return future completed with an instance of {@code classDefinition}, or
+     * exceptionally if initialization or loading of the object fails
+     */
+    @Nonnull
+    public <T> CompletableFuture<T> getConfigAsync(final Class<T> classDefinition, final ConfigContext context) {
+        if (!configManagerInitialized) {
+            return startInitialize(true).thenApply(new Function<Void, T>() {
+                @Override
+                public T apply(final Void ignored) {
+                    return getConfig(classDefinition, context);
+                }
+            });
+        }
+        CompletableFuture<T> result = new CompletableFuture<T>();
+        try {
+            result.complete(getConfig(classDefinition, context));
+        } catch (RuntimeException e) {
+            result.completeExceptionally(e);
         }
+        return result;
+    }
 
+    /**
+     * Creates and populates a new config object
+     */
+    private <T> T newConfigObject(final Class<T> classDefinition, final ConfigContext context) throws KeyNotFound {
         try {
             // Validates if class has @Config annotation
             Config configAnno = getAnnoConfig(classDefinition);
             configAnno.description();
-            config = classDefinition.newInstance();
+            T config = classDefinition.newInstance();
 
             // Initialize Config Object
             buildConfigObject(config, context, UTF8, configManagerCache);
-
-            configObjectsCache.put(getConfigListEntryName(classDefinition, context, contextSet), config);
             return config;
         } catch (InstantiationException e) {
             throw new ConfigRuntimeException("ConfigManager fatal exception:", e);
@@ -372,6 +697,14 @@ public enum ConfigManager {
         }
     }
 
+    /**
+     * @return number of config object builds avoided because the same object
+     *         was being built by another thread
+     */
+    public long getDuplicateBuildsAvoided() {
+        return configBuilds.getSuppressedCount();
+    }
+
     private ConfigManagerConfig internalConfig = null;
 
     /**
@@ -457,64 +790,43 @@ public enum ConfigManager {
     public <T> T buildConfigObject(final T config, final ConfigContext context, final Charset charset,
             final ConfigManagerCache localCache)
                     throws KeyNotFound {
+        ConfigBindingPlan plan = getBindingPlan(config.getClass());
+
+        if (!localCache.isModuleLoaded(config)) {
+            logger.warn("Config file for module " + plan.getResourceName() + " was not found");
+        }
+
         /*
-         * Iterate through all the methods and set values
+         * Walk the precompiled properties and set values. Each property
+         * carries its lookup keys, see ConfigBindingPlan.
          */
-        Method[] methods = config.getClass().getMethods();
-        for (Method method : methods) {
-            if (method.isAnnotationPresent(ConfigGet.class)) {
-                ConfigGet configGet = getAnnoConfigGet(method);
-                ValueType valueType = configGet.type();
-                configGet.defaultValue();
-                String methodName = "set" + method.getName().substring(3);
-
-                @SuppressWarnings("rawtypes")
-                Class[] par = new Class[1];
-                par[0] = valueType.classDefinition();
-
-                ConfigSet configSet = getConfigSet(config, methodName, par);
-
-                /*
-                 * Generate fieldList for which we need to perform lookup. Field
-                 * can be specified in 3 formats. 1. Member variable name 2.
-                 * Complete address for member variable name along with pkg
-                 * names 3. Specified separately by annotation @ConfigResourceId
-                 * 
-                 * fieldList = [Timeout,
-                 * common.config.App2Config.Timeout]
-                 * 
-                 * Look for each field in configFormat instance for it value.
-                 */
-                List<String> fileIdList = new ArrayList<String>();
-                try {
-                    ConfigResourceId configResId = getAnnoConfigResourceId(config, methodName, par);
-                    fileIdList.add(configResId.value());
-                } catch (KeyNotFound e) {
-                    // If missing just use the other 2 below
-                }
-                fileIdList.add(method.getName().substring(3));
-                fileIdList.add(config.getClass().getName() + "." + method.getName().substring(3));
-
-                if(!localCache.isModuleLoaded(config)) {
-                    ConfigResource anno = config.getClass().getAnnotation(ConfigResource.class);
-                    String uri = config.getClass().getCanonicalName();
-                    if (anno != null) {
-                        uri = anno.name();
-                    }
-                    logger.warn("Config file for module "+ uri +" was not found");
-                }
+        for (ConfigBindingPlan.Property property : plan.getProperties()) {
+            ConfigValue value = localCache.getValue(config, context, property.getLookupKeys());
+            loadfromValue(config, property.getConfigGet(), property.getConfigSet(), property.getSetterName(),
+                    property.getSetterAccessor(), property.getValueType(), value);
+        }
+        return config;
+    }
 
-                String value = null;
-                for (String fileId : fileIdList) {
-                    value = localCache.get(config, context, fileId, null);
-                    if (value != null) {
-                        break;
-                    }
-                }
-                loadfromValue(config, configGet, configSet, methodName, valueType, value);
+    /**
+     * Returns the binding plan for the config class, building it on first
+     * use. Classes that fail to build a plan are not cached so the error is
+     * reported on every call.
+     * 
+     * @param configClass
+     * @return binding plan for configClass
+     * @throws KeyNotFound
+     */
+    ConfigBindingPlan getBindingPlan(final Class<?> configClass) throws KeyNotFound {
+        ConfigBindingPlan plan = bindingPlans.get(configClass);
+        if (plan == null) {
+            plan = ConfigBindingPlan.create(configClass);
+            ConfigBindingPlan existing = bindingPlans.putIfAbsent(configClass, plan);
+            if (existing != null) {
+                plan = existing;
             }
         }
-        return config;
+        return plan;
     }
 
     /**
@@ -533,16 +845,24 @@ public enum ConfigManager {
      */
     public <T> void loadfromValue(final Object config, final ConfigGet configGet, final ConfigSet configSet,
             final String methodName, final ValueType valueType, final T value) throws KeyNotFound {
+        MethodAccessor setter = MethodAccessors.reflective(getMethodSet(config, methodName,
+                valueType.classDefinition()));
+        loadfromValue(config, configGet, configSet, methodName, setter, valueType, value);
+    }
+
+    private <T> void loadfromValue(final Object config, final ConfigGet configGet, final ConfigSet configSet,
+            final String methodName, final MethodAccessor setter, final ValueType valueType, final T value)
+                    throws KeyNotFound {
 
         if (configSet.useDefault()) {
             try {
                 if (value != null) {
-                    setKey(config, methodName, valueType, value);
+                    setKey(config, methodName, setter, valueType, value);
                     if (logger.isTraceEnabled()) {
                         logger.trace("Called " + config.getClass().getName() + "." + methodName + "(" + value + ")");
                     }
                 } else {
-                    setKey(config, methodName, valueType, configGet.defaultValue());
+                    setKey(config, methodName, setter, valueType, configGet.defaultValue());
                     if (logger.isTraceEnabled()) {
                         logger.trace("Called " + config.getClass().getName() + "." + methodName + "("
                                 + configGet.defaultValue() + ") with default");
@@ -551,7 +871,7 @@ public enum ConfigManager {
             } catch (TypeFormatException e) {
                 // Set to default value in case of exception
                 logger.error("Invalid value, using default.", e);
-                setKey(config, methodName, valueType, configGet.defaultValue());
+                setKey(config, methodName, setter, valueType, configGet.defaultValue());
                 if (logger.isTraceEnabled()) {
                     logger.trace("Called " + config.getClass().getName() + "." + methodName + "("
                             + configGet.defaultValue()
@@ -561,7 +881,7 @@ public enum ConfigManager {
         } else {
             try {
                 if (value != null) {
-                    setKey(config, methodName, valueType, value);
+                    setKey(config, methodName, setter, valueType, value);
                     if (logger.isTraceEnabled()) {
                         logger.trace("Called " + config.getClass().getName() + "." + methodName + "(" + value + ")");
                     }
@@ -576,62 +896,25 @@ public enum ConfigManager {
         }
     }
 
-    /**
-     * 
-     * @param valueType
-     * @param value
-     * @return
-     */
-    private Object convertValue(final ValueType valueType, final String value) {
-        if (ValueType.Number == valueType) {
-            return Double.parseDouble(value);
-        } else if (ValueType.Boolean == valueType) {
-            return Boolean.parseBoolean(value);
-        } else if (ValueType.String == valueType) {
-            return value;
-        } else if (ValueType.StringList == valueType) {
-            return Arrays.asList(value.split(":"));
-        } else if (ValueType.TimeList == valueType) {
-            String[] valueArr = value.split(":");
-            List<TimeValue> listTimeValue = new ArrayList<TimeValue>();
-            for (String timeValue : valueArr) {
-                listTimeValue.add(TimeValue.parse(timeValue));
-            }
-            return listTimeValue;
-        } else if (ValueType.Time == valueType) {
-            return TimeValue.parse(value);
-        } else if (ValueType.Bytes == valueType) {
-            return ByteValue.parse(value);
-        } else if (ValueType.Json == valueType) {
-            JsonParser parser = new JsonParser();
-            return parser.parse(value);
-        } else {
-            throw new ConfigRuntimeException("ConfigManager type " + valueType + " is not supported.");
-        }
-    }
-
     /**
      * 
      * @param <T>
      * @param config
      * @param methodName
+     * @param method
      * @param valueType
      * @param value
      */
-    private <T> void setKey(final Object config, final String methodName, final ValueType valueType, final T value) {
-
-        @SuppressWarnings("rawtypes")
-        Class[] par = new Class[1];
-        par[0] = valueType.classDefinition();
-        Method method = getMethodSet(config, methodName, par);
+    private <T> void setKey(final Object config, final String methodName, final MethodAccessor method,
+            final ValueType valueType, final T value) {
         try {
-            Object[] params = new Object[1];
-            if ((value instanceof String) && (ValueType.String != valueType)) {
-                params[0] = convertValue(valueType, (String) value);
+            if (value instanceof ConfigValue) {
+                method.invoke(config, ((ConfigValue) value).get(valueType));
+            } else if ((value instanceof String) && (ValueType.String != valueType)) {
+                method.invoke(config, ValueParser.convert(valueType, (String) value));
             } else {
-                params[0] = value;
+                method.invoke(config, value);
             }
-            method.invoke(config, params);
         } catch (TypeFormatException e) {
             e.setKeyName(methodName.substring(3));
             throw e;
@@ -705,31 +988,6 @@ public enum ConfigManager {
         }
     }
 
-    /**
-     * 
-     * @param <T>
-     * @param config
-     * @param methodName
-     * @param parameterTypes
-     * @return
-     */
-    private <T> ConfigSet getConfigSet(final T config, final String methodName, final Class<?>... parameterTypes) {
-        try {
-            Method method = config.getClass().getMethod(methodName, parameterTypes);
-            if (method.isAnnotationPresent(ConfigSet.class)) {
-                return method.getAnnotation(ConfigSet.class);
-            } else {
-                throw new KeyNotFound("ConfigManager: Method annotation ConfigSet is missing for method " + methodName);
-            }
-        } catch (SecurityException e) {
-            throw new ConfigRuntimeException("ConfigManager: method " + methodToString(methodName, parameterTypes)
-                    + " not found in class " + config.getClass(), e);
-        } catch (NoSuchMethodException e) {
-            throw new KeyNotFound("ConfigManager: method " + methodToString(methodName, parameterTypes)
-                    + " is required and is currently missing for class " + config.getClass(), e);
-        }
-    }
-
     /**
      * 
      * @param <T>
@@ -776,23 +1034,6 @@ public enum ConfigManager {
         return methodName + "(" + params.toString() + ")";
     }
 
-    /**
-     * 
-     * @param method
-     * @return
-     */
-    private ConfigGet getAnnoConfigGet(final Method method) {
-        Annotation[] annotations = method.getDeclaredAnnotations();
-
-        for (Annotation annotation : annotations) {
-            if (annotation instanceof ConfigGet) {
-                ConfigGet configGet = (ConfigGet) annotation;
-                return configGet;
-            }
-        }
-        throw new ConfigRuntimeException("ConfigManager: ConfigGet annotation is missing from method " + method);
-    }
-
     /**
      * 
      * @param <T>
@@ -833,36 +1074,6 @@ public enum ConfigManager {
                         + classDefinition.getName());
     }
 
-    /**
-     * 
-     * @param config
-     * @param methodName
-     * @param parameterTypes
-     * @return
-     */
-    private ConfigResourceId getAnnoConfigResourceId(final Object config, final String methodName,
-            final Class<?>... parameterTypes) {
-        Method method = getMethodSet(config, methodName, parameterTypes);
-        if (method.isAnnotationPresent(ConfigResourceId.class) && method.getName().equals(methodName)) {
-            return method.getAnnotation(ConfigResourceId.class);
-        } else {
-            throw new KeyNotFound("ConfigManager: method " + methodName + " is not annotated with @ConfigResourceId");
-        }
-    }
-
-    /**
-     * 
-     * 
-     * @param <T>
-     * @param classDefinition
-     * @param SetsKey
-     * @return
-     */
-    private <T> String getConfigListEntryName(final Class<T> classDefinition, final ConfigContext context,
-            final SortedSet<String> contextSet) {
-        return classDefinition.getName() + context.getUniqueId(contextSet);
-    }
-
     public ConfigManagerCache getCache() {
         return configManagerCache;
     }
@@ -871,7 +1082,7 @@ public enum ConfigManager {
      * Set to true when config values are loaded to Config Manager cache
      */
     public void setLoadingDone() {
-        isLoaderDone = true;
+        nextFlip.getAndSet(new CompletableFuture<Void>()).complete(null);
     }
 
 }
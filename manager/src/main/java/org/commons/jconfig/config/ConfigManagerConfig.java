@@ -76,4 +76,47 @@ public class ConfigManagerConfig {
     public void setConfigLoaderSyncInterval(final TimeValue timeValue) {
         configLoaderSyncInterval = timeValue;
     }
+
+    private Boolean lazyActivation = false;
+
+    /**
+     * Register config classes with JMX and load their resource files on their
+     * first getConfig, or when the ConfigLoader activates them, instead of at
+     * startup.
+     * 
+     * With LoadFrom JMX the ConfigLoader sends the values of a newly
+     * registered class on its next sync. getConfig does not wait for them,
+     * until then it returns objects with the values already loaded, e.g. from
+     * the config snapshot, or with the defaults.
+     * 
+     * @return Boolean
+     */
+    @ConfigGet(description = "Activate config classes on first use instead of at startup", type = ValueType.Boolean, defaultValue = "false")
+    public Boolean getLazyActivation() {
+        return lazyActivation;
+    }
+
+    @ConfigSet
+    public void setLazyActivation(final Boolean lazy) {
+        lazyActivation = lazy;
+    }
+
+    private String snapshotFile = "";
+
+    /**
+     * File the values pushed by the ConfigLoader are saved to on every flip.
+     * In JMX mode initialize loads it instead of waiting for the ConfigLoader,
+     * the ConfigLoader values replace it when they arrive.
+     * 
+     * @return file path, empty if snapshots are disabled
+     */
+    @ConfigGet(description = "Snapshot of the ConfigLoader values used at startup. Empty disables snapshots", type = ValueType.String, defaultValue = "")
+    public String getSnapshotFile() {
+        return snapshotFile;
+    }
+
+    @ConfigSet
+    public void setSnapshotFile(final String file) {
+        snapshotFile = file;
+    }
 }
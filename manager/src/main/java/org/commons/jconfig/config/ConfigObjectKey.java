@@ -0,0 +1,90 @@
+package org.commons.jconfig.config;
+
+import java.util.Arrays;
+import java.util.SortedSet;
+
+import javax.annotation.concurrent.Immutable;
+
+/**
+ * Key of the ConfigManager config objects cache. Holds the config class and
+ * the context values projected onto the context types of the class, e.g.
+ * [FARM, 323, COLO, null]. Context keys that are not part of the class context
+ * types do not change the config object and are not part of the key.
+ *
+ * Keys are memoized per class by {@link ConfigContext}, so a cache hit does not
+ * allocate.
+ *
+ * @author lafa
+ */
+@Immutable
+final class ConfigObjectKey {
+
+    private final Class<?> configClass;
+    /** context types and projected values, interleaved */
+    private final String[] projection;
+    /** context types the projection was computed for, compared by identity */
+    private final SortedSet<String> contextSet;
+    private final int hash;
+
+    ConfigObjectKey(final Class<?> configClass, final SortedSet<String> contextSet, final String[] projection) {
+        this.configClass = configClass;
+        this.contextSet = contextSet;
+        this.projection = projection;
+        this.hash = 31 * configClass.hashCode() + Arrays.hashCode(projection);
+    }
+
+    /**
+     * Projects the context onto the context types of a config class.
+     * 
+     * @param configClass
+     * @param contextSet
+     *            context types of configClass
+     * @param context
+     * @return config object key
+     */
+    static ConfigObjectKey project(final Class<?> configClass, final SortedSet<String> contextSet,
+            final ConfigContext context) {
+        String[] projection = new String[contextSet.size() * 2];
+        int i = 0;
+        for (String type : contextSet) {
+            projection[i++] = type;
+            projection[i++] = context.lookup(type);
+        }
+        return new ConfigObjectKey(configClass, contextSet, projection);
+    }
+
+    /**
+     * @param set
+     * @return true if this key was computed for the given context types
+     */
+    boolean isProjectionOf(final SortedSet<String> set) {
+        return contextSet == set;
+    }
+
+    Class<?> getConfigClass() {
+        return configClass;
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof ConfigObjectKey)) {
+            return false;
+        }
+        ConfigObjectKey other = (ConfigObjectKey) obj;
+        return hash == other.hash && configClass == other.configClass
+                && Arrays.equals(projection, other.projection);
+    }
+
+    @Override
+    public String toString() {
+        return configClass.getName() + Arrays.toString(projection);
+    }
+}
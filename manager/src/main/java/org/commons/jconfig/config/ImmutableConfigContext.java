@@ -0,0 +1,214 @@
+package org.commons.jconfig.config;
+
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.Immutable;
+
+/**
+ * Immutable Config Context. Keys and values are kept in sorted arrays, and the
+ * hash code and uniqueId are computed once when the context is built. Two
+ * immutable contexts with the same key value pairs are equal.
+ *
+ * Contexts built with {@link Builder#intern()} are canonical, equal contexts
+ * share one instance. Since ConfigManager memoizes the config object keys on
+ * the context, interned contexts resolve cached config objects without
+ * computing a key per request.
+ *
+ * -- Ex: creating a config object with an interned context --
+ *
+ * <code>
+ * ConfigContext context = new ImmutableConfigContext.Builder().put("FARM", 323).put("CLUSTER", "PTO").intern();
+ * ApplicationConfig config = ConfigManager.INSTANCE.getConfig(AppliactionConfig.class, context);
+ * </code>
+ *
+ * @author lafa
+ */
+@Immutable
+public final class ImmutableConfigContext extends ConfigContext {
+
+    /**
+     * Builder for {@link ImmutableConfigContext}, not thread safe.
+     */
+    public static class Builder {
+        private final TreeMap<String, String> values = new TreeMap<String, String>();
+
+        public Builder put(final String key, final String value) {
+            return internalPut(key, value);
+        }
+
+        public Builder put(final String key, final Number value) {
+            return internalPut(key, value);
+        }
+
+        private Builder internalPut(final String key, final Object value) {
+            if (key == null) {
+                throw new NullPointerException("key is null.");
+            }
+            if (value == null) {
+                throw new NullPointerException("value of key " + key + " is null.");
+            }
+            values.put(key, value.toString());
+            return this;
+        }
+
+        /**
+         * @return a new immutable context
+         */
+        @Nonnull
+        public ImmutableConfigContext build() {
+            return new ImmutableConfigContext(values.keySet().toArray(new String[values.size()]), values.values()
+                    .toArray(new String[values.size()]));
+        }
+
+        /**
+         * @return the canonical immutable context for the key value pairs
+         */
+        @Nonnull
+        public ImmutableConfigContext intern() {
+            return ImmutableConfigContext.intern(build());
+        }
+    }
+
+    /** Canonical contexts, entries are dropped when a context is no longer used */
+    private static final Map<ImmutableConfigContext, WeakReference<ImmutableConfigContext>> POOL = new WeakHashMap<ImmutableConfigContext, WeakReference<ImmutableConfigContext>>();
+
+    /**
+     * Returns the canonical instance of the context.
+     *
+     * @param context
+     * @return an instance equal to context
+     */
+    @Nonnull
+    public static ImmutableConfigContext intern(@Nonnull final ImmutableConfigContext context) {
+        synchronized (POOL) {
+            WeakReference<ImmutableConfigContext> ref = POOL.get(context);
+            ImmutableConfigContext canonical = ref == null ? null : ref.get();
+            if (canonical == null) {
+                POOL.put(context, new WeakReference<ImmutableConfigContext>(context));
+                canonical = context;
+            }
+            return canonical;
+        }
+    }
+
+    /** sorted keys */
+    private final String[] keys;
+    /** values of keys */
+    private final String[] values;
+    private final String uniqueId;
+    private final int hash;
+    private final ConcurrentHashMap<Class<?>, ConfigObjectKey> configKeys = new ConcurrentHashMap<Class<?>, ConfigObjectKey>(
+            4);
+
+    private ImmutableConfigContext(final String[] keys, final String[] values) {
+        this.keys = keys;
+        this.values = values;
+        StringBuilder id = new StringBuilder();
+        for (int i = 0; i < keys.length; i++) {
+            id.append(keys[i]).append(values[i]);
+        }
+        uniqueId = id.toString();
+        hash = 31 * Arrays.hashCode(keys) + Arrays.hashCode(values);
+    }
+
+    /**
+     * @throws UnsupportedOperationException
+     *             always
+     */
+    @Override
+    public void put(final String key, final String value) {
+        throw new UnsupportedOperationException("ImmutableConfigContext does not support put, key " + key);
+    }
+
+    /**
+     * @throws UnsupportedOperationException
+     *             always
+     */
+    @Override
+    public void put(final String key, final Number value) {
+        throw new UnsupportedOperationException("ImmutableConfigContext does not support put, key " + key);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return keys.length == 0;
+    }
+
+    @Override
+    public String get(final String key) {
+        String value = lookup(key);
+        if (value == null) {
+            throw new ConfigRuntimeException("key " + key + " not found in context: " + this);
+        }
+        return value;
+    }
+
+    @Override
+    String lookup(final String key) {
+        int i = Arrays.binarySearch(keys, key);
+        return i < 0 ? null : values[i];
+    }
+
+    @Override
+    public String getUniqueId() {
+        return uniqueId;
+    }
+
+    @Override
+    public String getUniqueId(final SortedSet<String> contextSet) {
+        StringBuilder temp = new StringBuilder();
+        for (String key : contextSet) {
+            String value = lookup(key);
+            if (value != null) {
+                temp.append(key).append(value);
+            }
+        }
+        return temp.toString();
+    }
+
+    @Override
+    ConfigObjectKey getConfigKey(final Class<?> configClass, final SortedSet<String> contextSet) {
+        ConfigObjectKey key = configKeys.get(configClass);
+        if (key == null || !key.isProjectionOf(contextSet)) {
+            key = ConfigObjectKey.project(configClass, contextSet, this);
+            configKeys.put(configClass, key);
+        }
+        return key;
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof ImmutableConfigContext)) {
+            return false;
+        }
+        ImmutableConfigContext other = (ImmutableConfigContext) obj;
+        return hash == other.hash && Arrays.equals(keys, other.keys) && Arrays.equals(values, other.values);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder str = new StringBuilder("{");
+        for (int i = 0; i < keys.length; i++) {
+            if (i > 0) {
+                str.append(", ");
+            }
+            str.append(keys[i]).append('=').append(values[i]);
+        }
+        return str.append('}').toString();
+    }
+}
@@ -15,8 +15,6 @@
 
 package org.commons.jconfig.datatype;
 
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 
 public class ByteValue implements java.io.Serializable {
@@ -26,14 +24,6 @@ public class ByteValue implements java.io.Serializable {
      */
     private static final long serialVersionUID = -2344361821969665171L;
 
-    /**
-     * A regular expression separating the configuration string into a number
-     * and units, in such a way that the number will parse as a long without
-     * exception, and the units specifier cannot be null or missing (but may be
-     * any case).
-     */
-    private static Pattern byteValueRegex = Pattern.compile("\\s*(\\d+)(\\s*)([a-zA-Z]+)\\s*");
-
     private final ByteUnit mByteUnit;
     private final long mValue;
 
@@ -87,10 +77,11 @@ public class ByteValue implements java.io.Serializable {
     }
 
     public static ByteValue parse(final String value) throws TypeFormatException {
-        Matcher matcher = byteValueRegex.matcher(value);
-        if (matcher.find()) {
-            long longVal = Long.parseLong(matcher.group(1));
-            ByteUnit units = ByteUnit.getByteUnit(matcher.group(3).toLowerCase());
+        // whole number and units, the units may be any case
+        UnitValueScanner scanned = UnitValueScanner.scan(value);
+        if (scanned != null) {
+            long longVal = Long.parseLong(scanned.getNumber());
+            ByteUnit units = ByteUnit.getByteUnit(scanned.getUnits().toLowerCase());
             if (units != null) {
                 return new ByteValue(longVal, units);
             } else {
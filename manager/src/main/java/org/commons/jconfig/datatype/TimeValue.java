@@ -18,8 +18,6 @@ package org.commons.jconfig.datatype;
 import java.util.HashMap;
 import java.util.Locale;
 import java.util.concurrent.TimeUnit;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 import javax.annotation.Nonnull;
 
@@ -89,15 +87,6 @@ public final class TimeValue implements java.io.Serializable, Comparable<TimeVal
         return 0;
     }
 
-    /**
-     * A regular expression separating the configuration string into a whole number
-     * and units, in such a way that the number will parse as a long without
-     * exception, and the units specifier cannot be null or missing (but may be
-     * any case).
-     * TODO fsg 110504 Add floating-point.
-     */
-    private static Pattern timeValueRegex = Pattern.compile("\\s*(\\d+)(\\s*)([a-zA-Z]+)\\s*");
-
     private final long value;
     private final TimeUnit timeUnit;
 
@@ -141,10 +130,12 @@ public final class TimeValue implements java.io.Serializable, Comparable<TimeVal
     }
 
     public static TimeValue parse(final String value) throws TypeFormatException {
-        Matcher matcher = timeValueRegex.matcher(value);
-        if (matcher.find()) {
-            long longVal = Long.parseLong(matcher.group(1));
-            TimeUnit units = abbreviationToUnit.get(matcher.group(3).toLowerCase(Locale.US));
+        // whole number and units, the units may be any case
+        // TODO fsg 110504 Add floating-point.
+        UnitValueScanner scanned = UnitValueScanner.scan(value);
+        if (scanned != null) {
+            long longVal = Long.parseLong(scanned.getNumber());
+            TimeUnit units = abbreviationToUnit.get(scanned.getUnits().toLowerCase(Locale.US));
             if (units != null) {
                 return new TimeValue(longVal, units);
             } else {
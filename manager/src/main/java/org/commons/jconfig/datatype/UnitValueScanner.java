@@ -0,0 +1,71 @@
+package org.commons.jconfig.datatype;
+
+/**
+ * Splits a configuration string into a whole number and a units specifier.
+ * Finds the first whole number followed, after optional white space, by one or
+ * more ASCII letters, the same text the regular expression
+ * {@code \s*(\d+)(\s*)([a-zA-Z]+)\s*} finds, without allocating a matcher.
+ */
+final class UnitValueScanner {
+
+    private final String number;
+    private final String units;
+
+    private UnitValueScanner(final String number, final String units) {
+        this.number = number;
+        this.units = units;
+    }
+
+    String getNumber() {
+        return number;
+    }
+
+    String getUnits() {
+        return units;
+    }
+
+    /**
+     * @param value
+     * @return number and units found in value or null if value contains no
+     *         number followed by units
+     */
+    static UnitValueScanner scan(final String value) {
+        int length = value.length();
+        int i = 0;
+        while (i < length) {
+            if (!isDigit(value.charAt(i))) {
+                i++;
+                continue;
+            }
+            int numberStart = i;
+            while (i < length && isDigit(value.charAt(i))) {
+                i++;
+            }
+            int numberEnd = i;
+            while (i < length && isWhitespace(value.charAt(i))) {
+                i++;
+            }
+            int unitsStart = i;
+            while (i < length && isLetter(value.charAt(i))) {
+                i++;
+            }
+            if (i > unitsStart) {
+                return new UnitValueScanner(value.substring(numberStart, numberEnd), value.substring(unitsStart, i));
+            }
+        }
+        return null;
+    }
+
+    private static boolean isDigit(final char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isLetter(final char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+
+    /** white space as matched by \s */
+    private static boolean isWhitespace(final char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+}
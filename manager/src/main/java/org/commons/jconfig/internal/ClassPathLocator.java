@@ -0,0 +1,26 @@
+package org.commons.jconfig.internal;
+
+import java.net.URL;
+import java.util.Collection;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Finds the classpath roots (jars and directories) scanned by
+ * {@link ScanClassPath} for annotated classes.
+ *
+ * Besides the built in locators, see {@link ClassPathLocators}, custom class
+ * loaders can provide their roots by registering an implementation in
+ * META-INF/services/org.commons.jconfig.internal.ClassPathLocator.
+ */
+public interface ClassPathLocator {
+
+    /**
+     * @param classLoader
+     *            class loader used to load the annotated classes
+     * @return file: or jar: urls of the roots visible to classLoader, roots
+     *         the locator does not know are not returned
+     */
+    @Nonnull
+    Collection<URL> getClassPathRoots(@Nonnull ClassLoader classLoader);
+}
@@ -0,0 +1,147 @@
+package org.commons.jconfig.internal;
+
+import java.io.File;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.MalformedURLException;
+import java.net.URI;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+import java.util.Set;
+
+import javax.annotation.Nonnull;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Built in {@link ClassPathLocator}s and lookup of the registered ones.
+ */
+public final class ClassPathLocators {
+
+    private static final Logger logger = Logger.getLogger(ClassPathLocators.class);
+
+    private ClassPathLocators() {
+    }
+
+    /**
+     * Urls of the {@link URLClassLoader}s in the class loader chain
+     */
+    public static final ClassPathLocator URL_CLASS_LOADER = new ClassPathLocator() {
+        @Override
+        public Collection<URL> getClassPathRoots(final ClassLoader classLoader) {
+            List<URL> urls = new ArrayList<URL>();
+            for (ClassLoader loader = classLoader; loader != null; loader = loader.getParent()) {
+                if (loader instanceof URLClassLoader) {
+                    urls.addAll(Arrays.asList(((URLClassLoader) loader).getURLs()));
+                }
+            }
+            return urls;
+        }
+    };
+
+    /**
+     * Entries of the java.class.path system property, the classpath of the
+     * application class loader on every java version
+     */
+    public static final ClassPathLocator JAVA_CLASS_PATH = new ClassPathLocator() {
+        @Override
+        public Collection<URL> getClassPathRoots(final ClassLoader classLoader) {
+            String classPath = System.getProperty("java.class.path");
+            if (classPath == null || classPath.isEmpty()) {
+                return Collections.emptyList();
+            }
+            List<URL> urls = new ArrayList<URL>();
+            for (String entry : classPath.split(File.pathSeparator)) {
+                if (entry.isEmpty()) {
+                    continue;
+                }
+                try {
+                    urls.add(new File(entry).getAbsoluteFile().toURI().toURL());
+                } catch (MalformedURLException e) {
+                    logger.debug("Skipping classpath entry " + entry, e);
+                }
+            }
+            return urls;
+        }
+    };
+
+    /**
+     * Locations of the modules of the boot layer and of the layer this class
+     * belongs to. Modules of the runtime image are skipped. Finds nothing
+     * before java 9, the module API is called by reflection.
+     */
+    public static final ClassPathLocator MODULE_LAYER = new ClassPathLocator() {
+        @Override
+        public Collection<URL> getClassPathRoots(final ClassLoader classLoader) {
+            try {
+                Class<?> layerClass = Class.forName("java.lang.ModuleLayer");
+                Method configuration = layerClass.getMethod("configuration");
+                Method modules = Class.forName("java.lang.module.Configuration").getMethod("modules");
+                Method reference = Class.forName("java.lang.module.ResolvedModule").getMethod("reference");
+                Method location = Class.forName("java.lang.module.ModuleReference").getMethod("location");
+
+                Set<Object> layers = new LinkedHashSet<Object>();
+                layers.add(layerClass.getMethod("boot").invoke(null));
+                Object module = Class.class.getMethod("getModule").invoke(ClassPathLocators.class);
+                Object layer = module.getClass().getMethod("getLayer").invoke(module);
+                if (layer != null) {
+                    layers.add(layer);
+                }
+
+                List<URL> urls = new ArrayList<URL>();
+                for (Object moduleLayer : layers) {
+                    for (Object resolved : (Set<?>) modules.invoke(configuration.invoke(moduleLayer))) {
+                        Optional<?> uri = (Optional<?>) location.invoke(reference.invoke(resolved));
+                        if (uri.isPresent() && "file".equals(((URI) uri.get()).getScheme())) {
+                            urls.add(((URI) uri.get()).toURL());
+                        }
+                    }
+                }
+                return urls;
+            } catch (ClassNotFoundException e) {
+                // before java 9
+            } catch (NoSuchMethodException e) {
+                logger.debug("Module layers are not supported", e);
+            } catch (IllegalAccessException e) {
+                logger.debug("Module layers are not supported", e);
+            } catch (InvocationTargetException e) {
+                logger.debug("Module layers are not supported", e);
+            } catch (MalformedURLException e) {
+                logger.debug("Module location is not a url", e);
+            }
+            return Collections.emptyList();
+        }
+    };
+
+    /**
+     * Returns the built in locators followed by the locators registered as
+     * services of classLoader
+     *
+     * @param classLoader
+     * @return locators
+     */
+    @Nonnull
+    public static List<ClassPathLocator> getLocators(@Nonnull final ClassLoader classLoader) {
+        List<ClassPathLocator> locators = new ArrayList<ClassPathLocator>();
+        locators.add(URL_CLASS_LOADER);
+        locators.add(JAVA_CLASS_PATH);
+        locators.add(MODULE_LAYER);
+        try {
+            for (ClassPathLocator locator : ServiceLoader.load(ClassPathLocator.class, classLoader)) {
+                locators.add(locator);
+            }
+        } catch (ServiceConfigurationError e) {
+            logger.warn("Failed to load ClassPathLocator services", e);
+        }
+        return locators;
+    }
+}
@@ -0,0 +1,519 @@
+package org.commons.jconfig.internal;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Thread safe bounded cache with the same api as {@link ConcurrentLRUCache}.
+ *
+ * Values are kept in a {@link ConcurrentHashMap}, reads never block. The
+ * eviction policy is split in segments, each segment owns the keys that hash
+ * to it and is guarded by its own lock. A segment keeps a small LRU admission
+ * window and a main LRU queue. An entry evicted from the window only replaces
+ * the main queue LRU victim if it was used more often, frequencies are
+ * estimated with a count-min sketch that is halved periodically (TinyLFU). One
+ * off keys therefore do not flush frequently used keys out of the cache.
+ *
+ * Reads are recorded in a lossy per segment buffer that is applied to the
+ * policy by whichever thread acquires the segment lock, so a cache hit does not
+ * wait on a lock. All policy operations are O(1).
+ *
+ * maxSize is split over the segments, so the cache never holds more than
+ * maxSize entries. A key only competes with the keys of its own segment, when
+ * maxSize is reduced below the number of segments some segments hold no
+ * entries at all.
+ *
+ * @param <Key>
+ * @param <Value>
+ */
+public class ConcurrentTinyLFUCache<Key, Value> {
+    /** Smallest segment capacity used to size the number of segments */
+    private static final int MIN_SEGMENT_CAPACITY = 64;
+    private static final int MAX_SEGMENTS = ceilingPowerOfTwo(Runtime.getRuntime().availableProcessors() * 4);
+
+    /** read buffer size, must be a power of two */
+    private static final int READ_BUFFER_SIZE = 32;
+    private static final int READ_BUFFER_MASK = READ_BUFFER_SIZE - 1;
+    /** drain the read buffer every 16 recorded reads */
+    private static final int READ_DRAIN_MASK = 15;
+
+    private static final int WINDOW = 0;
+    private static final int MAIN = 1;
+    private static final int DEAD = 2;
+
+    private volatile int mMaxSize;
+
+    private final ConcurrentHashMap<Key, Node<Key, Value>> map;
+    private final Segment[] segments;
+    private final int segmentMask;
+
+    // Stats
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder reusedKeys = new LongAdder();
+    private final LongAdder removedKeys = new LongAdder();
+
+    /**
+     * @param maxSize
+     */
+    public ConcurrentTinyLFUCache(final int maxSize) {
+        checkMaxSize(maxSize);
+        int count = Math.min(MAX_SEGMENTS, Math.max(1, Integer.highestOneBit(maxSize / MIN_SEGMENT_CAPACITY)));
+        // arrays of the inner Segment class can only be created raw, the array
+        // only ever holds segments of this cache
+        @SuppressWarnings({ "unchecked", "rawtypes" })
+        Segment[] created = (Segment[]) new ConcurrentTinyLFUCache.Segment[count];
+        segments = created;
+        segmentMask = count - 1;
+        for (int i = 0; i < count; i++) {
+            segments[i] = new Segment();
+        }
+        map = new ConcurrentHashMap<Key, Node<Key, Value>>(maxSize, 0.75f, count);
+        setMaxSize(maxSize);
+    }
+
+    /**
+     * This constructor can be used to clone, reduce or increase the cache size.
+     *
+     * @param maxSize
+     * @param cache
+     */
+    public ConcurrentTinyLFUCache(final int maxSize, final ConcurrentTinyLFUCache<Key, Value> cache) {
+        this(maxSize);
+        for (Node<Key, Value> node : cache.map.values()) {
+            Value value = node.value;
+            if (null != value) {
+                this.put(node.key, value);
+            }
+        }
+    }
+
+    private static void checkMaxSize(final int maxSize) {
+        if (maxSize <= 1) {
+            throw new IllegalArgumentException("Value " + maxSize + " has to be greater than zero.");
+        }
+    }
+
+    /**
+     * set the max size of the cache, entries over the new size are evicted
+     *
+     * @param maxSize
+     */
+    public void setMaxSize(final int maxSize) {
+        checkMaxSize(maxSize);
+        mMaxSize = maxSize;
+        // the remainder goes to the first segments, capacities add up to
+        // maxSize
+        int segmentCapacity = maxSize / segments.length;
+        int remainder = maxSize % segments.length;
+        for (int i = 0; i < segments.length; i++) {
+            Segment segment = segments[i];
+            segment.lock();
+            try {
+                segment.setCapacity(i < remainder ? segmentCapacity + 1 : segmentCapacity);
+                segment.evict();
+            } finally {
+                segment.unlock();
+            }
+        }
+    }
+
+    /**
+     * Touch a element in the cache, marks the element as recently used.
+     *
+     * @param key
+     *            - null key is not supported
+     */
+    public void touch(final Key key) {
+        Node<Key, Value> node = map.get(key);
+        if (node != null) {
+            Segment segment = segmentFor(node.hash);
+            segment.lock();
+            try {
+                segment.drainReadBuffer();
+                segment.onAccess(node);
+            } finally {
+                segment.unlock();
+            }
+            reusedKeys.increment();
+        }
+    }
+
+    /**
+     * Insert a element in the cache. Inserting a new key can evict the least
+     * recently used key of the same segment, or the inserted key itself if it
+     * is used less frequently.
+     *
+     * @param key
+     *            - null key is not supported
+     * @param val
+     *            value Object
+     */
+    public void put(final Key key, final Value val) {
+        if (val == null) {
+            throw new NullPointerException("null value is not supported");
+        }
+        int hash = spread(key.hashCode());
+        Segment segment = segmentFor(hash);
+        segment.lock();
+        try {
+            segment.drainReadBuffer();
+            Node<Key, Value> node = map.get(key);
+            if (node != null) {
+                node.value = val;
+                segment.onAccess(node);
+                reusedKeys.increment();
+                return;
+            }
+            node = new Node<Key, Value>(key, hash, val);
+            map.put(key, node);
+            segment.onInsert(node);
+        } finally {
+            segment.unlock();
+        }
+    }
+
+    /**
+     * Retrieve a value from cache
+     *
+     * @param key
+     *            - null key is not supported
+     * @return key value
+     */
+    public Value get(final Key key) {
+        Node<Key, Value> node = map.get(key);
+        if (node == null) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        segmentFor(node.hash).recordRead(node);
+        return node.value;
+    }
+
+    /**
+     * Retrieve current size
+     *
+     * @return size
+     */
+    public int size() {
+        return map.size();
+    }
+
+    /**
+     * clear cache and stats
+     */
+    public void clear() {
+        for (Segment segment : segments) {
+            segment.lock();
+        }
+        try {
+            map.clear();
+            for (Segment segment : segments) {
+                segment.reset();
+            }
+            hits.reset();
+            misses.reset();
+            reusedKeys.reset();
+            removedKeys.reset();
+        } finally {
+            for (Segment segment : segments) {
+                segment.unlock();
+            }
+        }
+    }
+
+    /**
+     * Returns a string with the cache stats. This method is for testing only,
+     * should be used as part of the api.
+     *
+     * @return - a string with stats on the cache
+     */
+    public String getStats() {
+        return "SIZE:" + map.size() + ", MAX_SIZE:" + mMaxSize + ", HIT:" + hits.sum() + ", MISS:" + misses.sum()
+                + ", REUSED_KEYS:" + reusedKeys.sum() + ", REMOVED_KEYS:" + removedKeys.sum();
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+        return getStats();
+    }
+
+    private Segment segmentFor(final int hash) {
+        return segments[(hash >>> 16) & segmentMask];
+    }
+
+    private static int spread(final int h) {
+        int x = h * 0x9E3779B9;
+        return x ^ (x >>> 16);
+    }
+
+    private static int ceilingPowerOfTwo(final int x) {
+        return x <= 1 ? 1 : Integer.highestOneBit(x - 1) << 1;
+    }
+
+    /**
+     * Cache entry, the links and queue are guarded by the segment lock.
+     */
+    private static final class Node<K, V> {
+        final K key;
+        final int hash;
+        volatile V value;
+
+        int queue = WINDOW;
+        Node<K, V> prev;
+        Node<K, V> next;
+
+        Node(final K key, final int hash, final V value) {
+            this.key = key;
+            this.hash = hash;
+            this.value = value;
+        }
+    }
+
+    /**
+     * Doubly linked LRU queue of nodes, head is the least recently used.
+     */
+    private static final class LinkedQueue<K, V> {
+        Node<K, V> head;
+        Node<K, V> tail;
+        int size;
+
+        void addLast(final Node<K, V> node) {
+            node.prev = tail;
+            node.next = null;
+            if (tail == null) {
+                head = node;
+            } else {
+                tail.next = node;
+            }
+            tail = node;
+            size++;
+        }
+
+        void remove(final Node<K, V> node) {
+            if (node.prev == null) {
+                head = node.next;
+            } else {
+                node.prev.next = node.next;
+            }
+            if (node.next == null) {
+                tail = node.prev;
+            } else {
+                node.next.prev = node.prev;
+            }
+            node.prev = null;
+            node.next = null;
+            size--;
+        }
+
+        void moveToLast(final Node<K, V> node) {
+            if (node != tail) {
+                remove(node);
+                addLast(node);
+            }
+        }
+
+        void clear() {
+            head = null;
+            tail = null;
+            size = 0;
+        }
+    }
+
+    /**
+     * Eviction policy of the keys hashed to the segment.
+     */
+    @SuppressWarnings("serial")
+    private final class Segment extends ReentrantLock {
+        private final LinkedQueue<Key, Value> window = new LinkedQueue<Key, Value>();
+        private final LinkedQueue<Key, Value> main = new LinkedQueue<Key, Value>();
+        private final FrequencySketch sketch = new FrequencySketch();
+        private int windowCapacity;
+        private int mainCapacity;
+
+        private final AtomicReferenceArray<Node<Key, Value>> readBuffer = new AtomicReferenceArray<Node<Key, Value>>(
+                READ_BUFFER_SIZE);
+        private final AtomicLong readCount = new AtomicLong();
+
+        void setCapacity(final int capacity) {
+            windowCapacity = capacity == 0 ? 0 : Math.max(1, capacity / 100);
+            mainCapacity = capacity - windowCapacity;
+            sketch.ensureCapacity(capacity);
+        }
+
+        /**
+         * Records a read without blocking, the buffer is drained when the lock
+         * is available.
+         */
+        void recordRead(final Node<Key, Value> node) {
+            long count = readCount.getAndIncrement();
+            readBuffer.lazySet((int) (count & READ_BUFFER_MASK), node);
+            if ((count & READ_DRAIN_MASK) == READ_DRAIN_MASK && tryLock()) {
+                try {
+                    drainReadBuffer();
+                } finally {
+                    unlock();
+                }
+            }
+        }
+
+        void drainReadBuffer() {
+            for (int i = 0; i < READ_BUFFER_SIZE; i++) {
+                Node<Key, Value> node = readBuffer.getAndSet(i, null);
+                if (node != null) {
+                    onAccess(node);
+                }
+            }
+        }
+
+        void onAccess(final Node<Key, Value> node) {
+            if (node.queue == WINDOW) {
+                window.moveToLast(node);
+            } else if (node.queue == MAIN) {
+                main.moveToLast(node);
+            } else {
+                return;
+            }
+            sketch.increment(node.hash);
+        }
+
+        void onInsert(final Node<Key, Value> node) {
+            node.queue = WINDOW;
+            window.addLast(node);
+            sketch.increment(node.hash);
+            evict();
+        }
+
+        /**
+         * Moves entries over the window capacity to the main queue. When the
+         * main queue is full, an entry moved from the window, the candidate, is
+         * only kept if it is used more often than the main LRU victim. Entries
+         * still over the main capacity after a capacity reduction are evicted
+         * in LRU order.
+         */
+        void evict() {
+            while (window.size > windowCapacity) {
+                Node<Key, Value> candidate = window.head;
+                window.remove(candidate);
+                candidate.queue = MAIN;
+                main.addLast(candidate);
+                if (main.size > mainCapacity) {
+                    Node<Key, Value> victim = main.head;
+                    if (victim != candidate && sketch.frequency(candidate.hash) > sketch.frequency(victim.hash)) {
+                        remove(victim);
+                    } else {
+                        remove(candidate);
+                    }
+                }
+            }
+            while (main.size > mainCapacity) {
+                remove(main.head);
+            }
+        }
+
+        private void remove(final Node<Key, Value> node) {
+            main.remove(node);
+            node.queue = DEAD;
+            map.remove(node.key, node);
+            removedKeys.increment();
+        }
+
+        void reset() {
+            for (Node<Key, Value> node = window.head; node != null; node = node.next) {
+                node.queue = DEAD;
+            }
+            for (Node<Key, Value> node = main.head; node != null; node = node.next) {
+                node.queue = DEAD;
+            }
+            window.clear();
+            main.clear();
+            sketch.clear();
+            for (int i = 0; i < READ_BUFFER_SIZE; i++) {
+                readBuffer.set(i, null);
+            }
+        }
+    }
+
+    /**
+     * Count-min sketch with four 4-bit counters per key. Counters are halved
+     * after 10 * capacity increments so old popularity fades out. Guarded by
+     * the segment lock.
+     */
+    private static final class FrequencySketch {
+        private static final long[] SEED = { 0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL,
+            0xcbf29ce484222325L };
+        private static final long RESET_MASK = 0x7777777777777777L;
+
+        private long[] table = new long[0];
+        private int tableMask;
+        private int sampleSize;
+        private int size;
+
+        void ensureCapacity(final int capacity) {
+            int length = ceilingPowerOfTwo(Math.max(capacity, 8));
+            if (length > table.length) {
+                table = new long[length];
+                tableMask = length - 1;
+                size = 0;
+            }
+            sampleSize = 10 * Math.max(capacity, 1);
+        }
+
+        int frequency(final int hash) {
+            int start = (hash & 3) << 2;
+            int frequency = Integer.MAX_VALUE;
+            for (int i = 0; i < 4; i++) {
+                int index = indexOf(hash, i);
+                int count = (int) ((table[index] >>> ((start + i) << 2)) & 0xfL);
+                frequency = Math.min(frequency, count);
+            }
+            return frequency;
+        }
+
+        void increment(final int hash) {
+            int start = (hash & 3) << 2;
+            boolean added = false;
+            for (int i = 0; i < 4; i++) {
+                int index = indexOf(hash, i);
+                int offset = (start + i) << 2;
+                long mask = 0xfL << offset;
+                if ((table[index] & mask) != mask) {
+                    table[index] += 1L << offset;
+                    added = true;
+                }
+            }
+            if (added && ++size >= sampleSize) {
+                reset();
+            }
+        }
+
+        private void reset() {
+            for (int i = 0; i < table.length; i++) {
+                table[i] = (table[i] >>> 1) & RESET_MASK;
+            }
+            size = size >>> 1;
+        }
+
+        void clear() {
+            for (int i = 0; i < table.length; i++) {
+                table[i] = 0L;
+            }
+            size = 0;
+        }
+
+        private int indexOf(final int hash, final int i) {
+            long h = (SEED[i] + hash) * SEED[i];
+            h += h >>> 32;
+            return ((int) h) & tableMask;
+        }
+    }
+}
@@ -1,15 +1,10 @@
 package org.commons.jconfig.internal;
 
-import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
 import java.io.Reader;
 import java.nio.charset.Charset;
-import java.util.Map.Entry;
 
 import javax.annotation.Nonnull;
 
@@ -19,10 +14,10 @@ import org.commons.jconfig.config.ConfigManagerConfig;
 import org.commons.jconfig.config.ConfigRuntimeException;
 
 import com.google.gson.JsonElement;
-import com.google.gson.JsonIOException;
-import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
 import com.google.gson.JsonParser;
-import com.google.gson.JsonSyntaxException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
 
 /**
  * Encapsulation for parsing and saving Json config. The config values will be
@@ -38,7 +33,7 @@ import com.google.gson.JsonSyntaxException;
 public class ConfigAdapterJson implements ConfigAdapter<String> {
     private final Logger logger = Logger.getLogger(ConfigAdapterJson.class);
 
-    private InputStream getStream(final String uri, final Charset charset,
+    private Reader getReader(final String uri, final Charset charset,
             final ConfigManagerConfig internalConfig) {
         logger.info("config uri: " + uri);
         File dir = new File(internalConfig.getConfigPath());
@@ -46,10 +41,10 @@ public class ConfigAdapterJson implements ConfigAdapter<String> {
             File config = new File(dir.getAbsolutePath() + File.separator + uri);
             if (config.isFile() && config.canRead()) {
                 try {
-                    return new FileInputStream(config);
-                } catch (FileNotFoundException e) {
-                    logger.warn("File not found: '" + config.getAbsolutePath()
-                            + "'");
+                    return ConfigFileSource.openReader(config, charset);
+                } catch (IOException e) {
+                    logger.warn("Failed to read file: '"
+                            + config.getAbsolutePath() + "'", e);
                 }
             } else {
                 logger.warn("Failed to load configuration for resource '"
@@ -69,7 +64,7 @@ public class ConfigAdapterJson implements ConfigAdapter<String> {
                         + uri + "' from classpath.");
             }
         }
-        return in;
+        return in == null ? null : ConfigFileSource.openReader(in, charset);
     }
 
     private final String uri;
@@ -131,52 +126,95 @@ public class ConfigAdapterJson implements ConfigAdapter<String> {
         }
     }
 
-    /*
-     * (non-Javadoc)
+    /**
+     * Streams the modules of the file to jmxloader, one module tree at a time,
+     * so the file is never held in memory as a whole. Modules read before an
+     * error are already inserted, callers that need all or nothing load into
+     * a staging cache.
      * 
-     * @see
-     * common.config.internal.ConfigAdapter#loadValue(common.config.internal
-     * .ConfigAdapterJmx, java.lang.String)
+     * @see org.commons.jconfig.internal.ConfigAdapter#loadValue(ConfigManagerCache)
      */
     @Override
     public void loadValue(final ConfigManagerCache jmxloader)
             throws ConfigException {
-        JsonObject confJson = null;
-        InputStream in = getStream(uri, charset, internalConfig);
+        Reader in = getReader(uri, charset, internalConfig);
         if (null == in) {
             throw new ConfigException("Failed to load from json file: " + uri);
         }
-        Reader reader = new BufferedReader(new InputStreamReader(in, charset));
-        JsonParser parser = new JsonParser();
         try {
-            confJson = (JsonObject) parser.parse(reader);
-        } catch (JsonIOException e) {
-            throw new ConfigException("Invalid json format for file " + uri);
-        } catch (JsonSyntaxException e) {
-            throw new ConfigException("Invalid json format for file " + uri);
+            readModules(in, uri, jmxloader);
+        } finally {
+            try {
+                in.close();
+            } catch (IOException e) {
+                logger.warn("Error while closing json config file " + uri, e);
+            }
         }
+    }
+
+    /**
+     * Streams the modules of a document in config file format to jmxloader.
+     * The reader is not closed.
+     * 
+     * @param in
+     * @param source
+     *            name of the document for error messages
+     * @param jmxloader
+     * @throws ConfigException
+     *             if the document is not valid json or has no Modules
+     */
+    static void readModules(final Reader in, final String source,
+            final ConfigManagerCache jmxloader) throws ConfigException {
+        JsonReader reader = new JsonReader(in);
+        reader.setLenient(true);
         try {
-            reader.close();
-            in.close();
-        } catch (IOException e) {
-            throw new ConfigException("Error while closing json config file ",
-                    e);
-        }
-        if (confJson != null && confJson.get("Modules") != null
-                && confJson.get("Modules").isJsonObject()) {
-            JsonObject modules = confJson.get("Modules").getAsJsonObject();
-            for (Entry<String, JsonElement> entry : modules.entrySet()) {
-                if (entry.getValue() != null && entry.getValue().isJsonObject()) {
-                    jmxloader.insertValue(entry.getKey(), entry.getValue()
-                            .toString());
+            if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+                throw new ConfigException(
+                        "Config format incorrect or file not found ");
+            }
+            boolean modulesFound = false;
+            reader.beginObject();
+            while (reader.hasNext()) {
+                String name = reader.nextName();
+                if (name.equals("Modules")
+                        && reader.peek() == JsonToken.BEGIN_OBJECT) {
+                    modulesFound = true;
+                    readModules(reader, source, jmxloader);
                 } else {
-                    throw new ConfigRuntimeException("Invalid config format: "
-                            + confJson);
+                    reader.skipValue();
                 }
             }
-        } else {
-            throw new ConfigException(
-                    "Config format incorrect or file not found ");
+            reader.endObject();
+            if (reader.peek() != JsonToken.END_DOCUMENT) {
+                throw new ConfigException("Invalid json format for file " + source);
+            }
+            if (!modulesFound) {
+                throw new ConfigException(
+                        "Config format incorrect or file not found ");
+            }
+        } catch (IOException e) {
+            throw new ConfigException("Invalid json format for file " + source);
+        } catch (JsonParseException e) {
+            throw new ConfigException("Invalid json format for file " + source);
+        } catch (IllegalStateException e) {
+            throw new ConfigException("Invalid json format for file " + source);
+        }
+    }
+
+    private static void readModules(final JsonReader reader, final String source,
+            final ConfigManagerCache jmxloader) throws IOException {
+        JsonParser parser = new JsonParser();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String module = reader.nextName();
+            JsonElement value = parser.parse(reader);
+            if (value.isJsonObject()) {
+                jmxloader.insertValue(module, value.getAsJsonObject());
+            } else {
+                throw new ConfigRuntimeException("Invalid config format: module "
+                        + module + " of " + source + " is " + value);
+            }
         }
+        reader.endObject();
     }
 }
@@ -1,11 +1,9 @@
 package org.commons.jconfig.internal;
 
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
+import java.io.Reader;
 import java.nio.charset.Charset;
 import java.util.Iterator;
 import java.util.Properties;
@@ -24,37 +22,34 @@ public class ConfigAdapterProperties implements ConfigAdapter<String> {
 
     public ConfigAdapterProperties(final String uri, final Charset charset, final ConfigManagerConfig internalConfig) {
         props = new Properties();
-        InputStream in = getStream(uri, charset, internalConfig);
+        Reader reader = getReader(uri, charset, internalConfig);
+        if (reader == null) {
+            return;
+        }
         try {
-            InputStreamReader reader = new InputStreamReader(in);
             props.load(reader);
-            reader.close();
-        } catch (FileNotFoundException e) {
-            logger.error("Error loading configuration for resource '" + uri + "'.", e);
         } catch (IOException e) {
             logger.error("Error loading configuration for resource '" + uri + "'.", e);
         } finally {
-            if (in != null) {
-                try {
-                    in.close();
-                } catch (IOException e) {
-                    logger.error("Error loading configuration for resource '" + uri + "'.", e);
-                }
+            try {
+                reader.close();
+            } catch (IOException e) {
+                logger.error("Error loading configuration for resource '" + uri + "'.", e);
             }
         }
     }
 
 
-    private InputStream getStream(final String uri, final Charset charset, final ConfigManagerConfig internalConfig) {
+    private Reader getReader(final String uri, final Charset charset, final ConfigManagerConfig internalConfig) {
         if (internalConfig != null) {
             File dir = new File(internalConfig.getConfigPath());
             if (dir.isDirectory()) {
                 File config = new File(dir.getAbsolutePath() + File.separator + uri);
                 if (config.isFile() && config.canRead()) {
                     try {
-                        return new FileInputStream(config);
-                    } catch (FileNotFoundException e) {
-                        logger.warn("File not found: '" + config.getAbsolutePath() + "'");
+                        return ConfigFileSource.openReader(config, charset);
+                    } catch (IOException e) {
+                        logger.warn("Failed to read file: '" + config.getAbsolutePath() + "'", e);
                     }
                 } else {
                     logger.warn("Failed to load configuration for resource '" + config.getAbsolutePath() + "'");
@@ -69,8 +64,9 @@ public class ConfigAdapterProperties implements ConfigAdapter<String> {
         InputStream in = getClass().getResourceAsStream("/" + uri);
         if (in == null) {
             logger.error("Failed to load configuration for resource '" + uri + "' from classpath.");
+            return null;
         }
-        return in;
+        return ConfigFileSource.openReader(in, charset);
     }
 
 //    @Override
@@ -98,6 +94,6 @@ public class ConfigAdapterProperties implements ConfigAdapter<String> {
             json.addProperty(key, props.getProperty(key));
         }
         
-        jmxloader.insertValue(CONST._PROP_.toString(), json.toString());
+        jmxloader.insertValue(CONST._PROP_.toString(), json);
     }
 }
@@ -0,0 +1,201 @@
+package org.commons.jconfig.internal;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.Immutable;
+
+import org.commons.jconfig.annotations.ConfigGet;
+import org.commons.jconfig.annotations.ConfigResource;
+import org.commons.jconfig.annotations.ConfigResourceId;
+import org.commons.jconfig.annotations.ConfigSet;
+import org.commons.jconfig.config.ConfigRuntimeException;
+import org.commons.jconfig.config.KeyNotFound;
+import org.commons.jconfig.datatype.ValueType;
+
+/**
+ * Pre-resolved description of how to populate a config class. The plan is
+ * built once per class, walking the {@link ConfigGet} methods and resolving the
+ * matching {@link ConfigSet} setter, value type, default value and the list of
+ * keys to look up in the config cache. Binding a config object then walks the
+ * property array without any reflection discovery.
+ *
+ * Lookup keys for every property are, in order: 1. @ConfigResourceId value (if
+ * present on the setter) 2. Member variable name 3. Complete address of the
+ * member variable along with pkg name, e.g. [Timeout,
+ * common.config.App2Config.Timeout]
+ *
+ * @author lafa
+ */
+@Immutable
+public final class ConfigBindingPlan {
+
+    /**
+     * Binding description of a single config key
+     */
+    @Immutable
+    public static final class Property {
+        private final String keyName;
+        private final String setterName;
+        private final Method setter;
+        private final MethodAccessor setterAccessor;
+        private final ConfigGet configGet;
+        private final ConfigSet configSet;
+        private final ValueType valueType;
+        private final String[] lookupKeys;
+
+        private Property(final String keyName, final Method setter, final ConfigGet configGet,
+                final ConfigSet configSet, final String[] lookupKeys) {
+            this.keyName = keyName;
+            this.setterName = setter.getName();
+            this.setter = setter;
+            this.setterAccessor = MethodAccessors.of(setter);
+            this.configGet = configGet;
+            this.configSet = configSet;
+            this.valueType = configGet.type();
+            this.lookupKeys = lookupKeys;
+        }
+
+        /**
+         * @return config key name, the getter name without the "get" part
+         */
+        public String getKeyName() {
+            return keyName;
+        }
+
+        public String getSetterName() {
+            return setterName;
+        }
+
+        public Method getSetter() {
+            return setter;
+        }
+
+        public MethodAccessor getSetterAccessor() {
+            return setterAccessor;
+        }
+
+        public ConfigGet getConfigGet() {
+            return configGet;
+        }
+
+        public ConfigSet getConfigSet() {
+            return configSet;
+        }
+
+        public ValueType getValueType() {
+            return valueType;
+        }
+
+        public String getDefaultValue() {
+            return configGet.defaultValue();
+        }
+
+        /**
+         * @return keys to look up in the config cache, in order of precedence.
+         *         The returned array must not be modified.
+         */
+        public String[] getLookupKeys() {
+            return lookupKeys;
+        }
+
+        @Override
+        public String toString() {
+            return setterName + "(" + valueType + ")";
+        }
+    }
+
+    private final Class<?> configClass;
+    private final Property[] properties;
+    private final String resourceName;
+
+    private ConfigBindingPlan(final Class<?> configClass, final Property[] properties) {
+        this.configClass = configClass;
+        this.properties = properties;
+        ConfigResource anno = configClass.getAnnotation(ConfigResource.class);
+        resourceName = anno != null ? anno.name() : configClass.getCanonicalName();
+    }
+
+    /**
+     * Builds the binding plan for the given config class.
+     *
+     * @param configClass
+     *            class with {@link ConfigGet} / {@link ConfigSet} annotated
+     *            methods
+     * @return binding plan
+     * @throws KeyNotFound
+     *             if a {@link ConfigGet} method has no matching
+     *             {@link ConfigSet} setter
+     */
+    @Nonnull
+    public static ConfigBindingPlan create(@Nonnull final Class<?> configClass) throws KeyNotFound {
+        List<Property> properties = new ArrayList<Property>();
+        for (Method method : configClass.getMethods()) {
+            ConfigGet configGet = method.getAnnotation(ConfigGet.class);
+            if (configGet == null) {
+                continue;
+            }
+            String keyName = method.getName().substring(3);
+            String setterName = "set" + keyName;
+            Class<?> paramType = configGet.type().classDefinition();
+            Method setter = getMethodSet(configClass, setterName, paramType);
+
+            List<String> lookupKeys = new ArrayList<String>(3);
+            ConfigResourceId configResId = setter.getAnnotation(ConfigResourceId.class);
+            if (configResId != null) {
+                lookupKeys.add(configResId.value());
+            }
+            lookupKeys.add(keyName);
+            lookupKeys.add(configClass.getName() + "." + keyName);
+
+            properties.add(new Property(keyName, setter, configGet, setter.getAnnotation(ConfigSet.class),
+                    lookupKeys.toArray(new String[lookupKeys.size()])));
+        }
+        return new ConfigBindingPlan(configClass, properties.toArray(new Property[properties.size()]));
+    }
+
+    private static Method getMethodSet(final Class<?> configClass, final String methodName,
+            final Class<?> parameterType) {
+        try {
+            Method method = configClass.getMethod(methodName, parameterType);
+            if (method.isAnnotationPresent(ConfigSet.class)) {
+                return method;
+            } else {
+                throw new KeyNotFound("ConfigManager: Method annotation ConfigSet is missing for method " + methodName);
+            }
+        } catch (SecurityException e) {
+            throw new ConfigRuntimeException("ConfigManager: method " + methodName + "(" + parameterType.getName()
+                    + ") not found in class " + configClass, e);
+        } catch (NoSuchMethodException e) {
+            throw new KeyNotFound("ConfigManager: method " + methodName + "(" + parameterType.getName()
+                    + ") is required and is currently missing for class " + configClass, e);
+        }
+    }
+
+    public Class<?> getConfigClass() {
+        return configClass;
+    }
+
+    /**
+     * @return properties of the config class. The returned array must not be
+     *         modified.
+     */
+    public Property[] getProperties() {
+        return properties;
+    }
+
+    /**
+     * @return name of the config resource for this class, used for logging
+     */
+    public String getResourceName() {
+        return resourceName;
+    }
+
+    @Override
+    public String toString() {
+        return configClass.getName() + Arrays.toString(properties);
+    }
+}
@@ -0,0 +1,125 @@
+package org.commons.jconfig.internal;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.RandomAccessFile;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Opens config files for parsing. Files of {@link #MAP_THRESHOLD} bytes or
+ * more are memory mapped and decoded straight from the mapping, so their bytes
+ * are never copied to the heap. Smaller files and classpath resources are read
+ * through a buffered stream.
+ */
+public final class ConfigFileSource {
+
+    /** size from which files are memory mapped */
+    public static final long MAP_THRESHOLD = 1024 * 1024;
+
+    private static final int CHAR_BUFFER_SIZE = 8192;
+
+    private ConfigFileSource() {
+    }
+
+    /**
+     * @param file
+     * @param charset
+     * @return reader of the file content, to be closed by the caller
+     * @throws IOException
+     */
+    @Nonnull
+    public static Reader openReader(@Nonnull final File file, @Nonnull final Charset charset) throws IOException {
+        return openReader(file, charset, MAP_THRESHOLD);
+    }
+
+    static Reader openReader(final File file, final Charset charset, final long mapThreshold) throws IOException {
+        if (file.length() < mapThreshold) {
+            return openReader(new FileInputStream(file), charset);
+        }
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            FileChannel channel = raf.getChannel();
+            // the mapping stays valid after the channel is closed
+            MappedByteBuffer bytes = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new ByteBufferReader(bytes, charset);
+        } finally {
+            raf.close();
+        }
+    }
+
+    /**
+     * @param in
+     *            stream of a classpath resource, closed with the reader
+     * @param charset
+     * @return buffered reader of in
+     */
+    @Nonnull
+    public static Reader openReader(@Nonnull final InputStream in, @Nonnull final Charset charset) {
+        return new BufferedReader(new InputStreamReader(in, charset), CHAR_BUFFER_SIZE);
+    }
+
+    /**
+     * Decodes a byte buffer in chunks. Malformed input is replaced, as with
+     * {@link InputStreamReader}.
+     */
+    static final class ByteBufferReader extends Reader {
+        private final ByteBuffer bytes;
+        private final CharsetDecoder decoder;
+        private final CharBuffer chars = CharBuffer.allocate(CHAR_BUFFER_SIZE);
+        private boolean decoded = false;
+        private boolean eof = false;
+
+        ByteBufferReader(final ByteBuffer bytes, final Charset charset) {
+            this.bytes = bytes;
+            decoder = charset.newDecoder().onMalformedInput(CodingErrorAction.REPLACE)
+                    .onUnmappableCharacter(CodingErrorAction.REPLACE);
+            chars.flip();
+        }
+
+        @Override
+        public int read(final char[] cbuf, final int off, final int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            if (!chars.hasRemaining() && !fill()) {
+                return -1;
+            }
+            int n = Math.min(len, chars.remaining());
+            chars.get(cbuf, off, n);
+            return n;
+        }
+
+        private boolean fill() {
+            chars.clear();
+            while (chars.position() == 0 && !eof) {
+                if (!decoded) {
+                    // the whole input is in bytes, underflow means all of it was decoded
+                    decoded = decoder.decode(bytes, chars, true).isUnderflow();
+                } else if (decoder.flush(chars).isUnderflow()) {
+                    eof = true;
+                }
+            }
+            chars.flip();
+            return chars.hasRemaining();
+        }
+
+        @Override
+        public void close() {
+            eof = true;
+            chars.clear().flip();
+        }
+    }
+}
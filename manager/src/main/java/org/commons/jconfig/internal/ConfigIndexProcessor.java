@@ -0,0 +1,118 @@
+package org.commons.jconfig.internal;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.Set;
+import java.util.TreeSet;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.TypeElement;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+
+/**
+ * Annotation processor writing the list of {@link org.commons.jconfig.annotations.Config}
+ * classes of a compilation unit to {@link #INDEX_RESOURCE}. ConfigManager reads
+ * the index at startup instead of scanning the classpath.
+ *
+ * The processor is registered in META-INF/services and runs for every module
+ * compiled with the manager jar on its classpath.
+ */
+@SupportedAnnotationTypes("org.commons.jconfig.annotations.Config")
+public class ConfigIndexProcessor extends AbstractProcessor {
+
+    /** classpath resource listing the binary names of @Config classes, one per line */
+    public static final String INDEX_RESOURCE = "META-INF/jconfig/config-classes.idx";
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private final Set<String> configClasses = new TreeSet<String>();
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(final Set<? extends TypeElement> annotations, final RoundEnvironment roundEnv) {
+        for (TypeElement annotation : annotations) {
+            for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+                if (element instanceof TypeElement) {
+                    configClasses.add(processingEnv.getElementUtils().getBinaryName((TypeElement) element).toString());
+                }
+            }
+        }
+        if (roundEnv.processingOver() && !configClasses.isEmpty()) {
+            writeIndex();
+        }
+        return false;
+    }
+
+    private void writeIndex() {
+        // keep the entries of a previous compile, incremental builds only
+        // process the changed sources. Stale entries are skipped at runtime.
+        Set<String> entries = new TreeSet<String>(configClasses);
+        try {
+            FileObject existing = processingEnv.getFiler().getResource(StandardLocation.CLASS_OUTPUT, "",
+                    INDEX_RESOURCE);
+            Reader reader = new BufferedReader(new InputStreamReader(existing.openInputStream(), UTF8));
+            try {
+                entries.addAll(readIndex(reader));
+            } finally {
+                reader.close();
+            }
+        } catch (IOException e) {
+            // no previous index
+        } catch (IllegalArgumentException e) {
+            // no previous index
+        }
+
+        try {
+            FileObject index = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "",
+                    INDEX_RESOURCE);
+            Writer writer = new OutputStreamWriter(index.openOutputStream(), UTF8);
+            try {
+                for (String entry : entries) {
+                    writer.write(entry);
+                    writer.write('\n');
+                }
+            } finally {
+                writer.close();
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                    "Failed to write " + INDEX_RESOURCE + ": " + e);
+        }
+    }
+
+    /**
+     * Reads the class names of an index, skipping blank lines and # comments
+     *
+     * @param reader
+     * @return class names
+     * @throws IOException
+     */
+    static Set<String> readIndex(final Reader reader) throws IOException {
+        Set<String> entries = new TreeSet<String>();
+        BufferedReader lines = reader instanceof BufferedReader ? (BufferedReader) reader : new BufferedReader(
+                reader);
+        String line;
+        while ((line = lines.readLine()) != null) {
+            line = line.trim();
+            if (!line.isEmpty() && !line.startsWith("#")) {
+                entries.add(line);
+            }
+        }
+        return entries;
+    }
+}
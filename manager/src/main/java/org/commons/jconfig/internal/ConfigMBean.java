@@ -42,11 +42,17 @@ public class ConfigMBean implements DynamicMBean {
     // Utilitary tuple
     private class Tuple {
         public Tuple(final Object object, final Method m) {
+            this(object, m, null);
+        }
+        public Tuple(final Object object, final Method m, final MethodAccessor a) {
             instance = object;
             method = m;
+            accessor = a;
         }
         Object instance;
         Method method;
+        /** Set for attribute getters only */
+        MethodAccessor accessor;
     };
     
     private final Map<String, Tuple> getters;
@@ -96,15 +102,15 @@ public class ConfigMBean implements DynamicMBean {
                     m.getReturnType() != void.class) {
                 
                 if (m.isAnnotationPresent(ConfigResourceId.class)) {
-                    getters.put(m.getAnnotation(ConfigResourceId.class).value(), new Tuple(null,m));
+                    getters.put(m.getAnnotation(ConfigResourceId.class).value(), new Tuple(null,m,MethodAccessors.of(m)));
                 } else {
-                    getters.put(m.getName().substring(3), new Tuple(null,m));    
+                    getters.put(m.getName().substring(3), new Tuple(null,m,MethodAccessors.of(m)));    
                 }
             } else if (m.getName().startsWith("is") &&
                     !m.getName().equals("is") &&
                     m.getParameterTypes().length == 0 &&
                     m.getReturnType() == boolean.class) {
-                getters.put(m.getName().substring(2),new Tuple(null,m));
+                getters.put(m.getName().substring(2),new Tuple(null,m,MethodAccessors.of(m)));
             } else if (m.getName().startsWith("set") &&
                     !m.getName().equals("set") &&
                     m.getParameterTypes().length == 1 &&
@@ -124,8 +130,9 @@ public class ConfigMBean implements DynamicMBean {
         attributesName.addAll(setters.keySet());
 
         // Register for ConfigLoaderAdapter
-        getters.put("ConfigLoaderAdapter", new Tuple(adapter, adapter.getGetMethod()));
-        getters.put("ConfigResource", new Tuple(configResource, configResource.getGetMethod()));
+        getters.put("ConfigLoaderAdapter", new Tuple(adapter, adapter.getGetMethod(), MethodAccessors.of(adapter.getGetMethod())));
+        getters.put("ConfigResource", new Tuple(configResource, configResource.getGetMethod(),
+                MethodAccessors.of(configResource.getGetMethod())));
         MBeanAttributeInfo adapterAttr = new MBeanAttributeInfo("ConfigLoaderAdapter", "ConfigLoaderAdapter",
                 adapter.getGetMethod(), adapter.getSetMethod());
         MBeanAttributeInfo configResourceAttr = new MBeanAttributeInfo("ConfigResource", "ConfigResource",
@@ -165,7 +172,7 @@ public class ConfigMBean implements DynamicMBean {
         if (get == null)
             throw new AttributeNotFoundException("Fail to find method: " + configClazz.getName() + ".get" + attribute);
         try {
-            return get.method.invoke(get.instance);
+            return get.accessor.invoke(get.instance);
         } catch (IllegalArgumentException ex) {
             throw new ReflectionException(ex);
         } catch (InvocationTargetException ex) {
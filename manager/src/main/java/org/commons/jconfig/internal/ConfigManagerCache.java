@@ -1,12 +1,20 @@
 package org.commons.jconfig.internal;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.SortedSet;
+import java.util.TreeMap;
 import java.util.TreeSet;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 
 import javax.annotation.Nonnull;
@@ -14,6 +22,7 @@ import javax.annotation.concurrent.ThreadSafe;
 
 import org.apache.log4j.Logger;
 import org.commons.jconfig.config.ConfigContext;
+import org.commons.jconfig.config.ConfigException;
 import org.commons.jconfig.config.ConfigManager;
 import org.commons.jconfig.config.ConfigRuntimeException;
 import org.commons.jconfig.internal.ConfigAdapterJson.CONST;
@@ -42,7 +51,7 @@ public class ConfigManagerCache {
 
         @Override
         public String toString() {
-            return keyMap.toString();
+            return table != null ? table.toString() : keyMap.toString();
         }
 
         /**
@@ -51,33 +60,27 @@ public class ConfigManagerCache {
          * Structure of keyMap:
          * 
          * { FARM1 : { a:b, d:e }, FARM2 : {f:d, z:y },_Defs_ : {} }
+         * 
+         * Released when the module becomes readable, lookups then use table.
          */
-        private final Map<String, Map<String, JsonElement>> keyMap = new HashMap<String, Map<String, JsonElement>>();
+        private Map<String, Map<String, JsonElement>> keyMap = new HashMap<String, Map<String, JsonElement>>();
+
+        /** read only values, set when the module becomes readable */
+        private ConfigModuleTable table = null;
 
         /** setType defined for this module or null if no setType is defined */
         private final TreeSet<String> contextTypes = new TreeSet<String>();
+        /** unmodifiable copy of contextTypes, set when the module becomes readable */
+        private SortedSet<String> frozenContextTypes = null;
         private String setType = null;
+        /** generation of the module values, set when the module becomes readable */
+        private long generation = 0;
 
         public ClassMemConfig(final JsonObject configValue) {
             parseAndSaveValues(configValue);
         }
-        public JsonElement get(final ConfigContext context, final String fileId) {
-            JsonElement value = null;
-            if (setType != null) {
-                Map<String, JsonElement> values = keyMap.get(context.get(setType));
-                if (values != null) {
-                    value = values.get(fileId);
-                }
-            }
-            if (value == null) {
-                Map<String, JsonElement> values = keyMap.get(CONST.DEFAULTS.toString());
-                value = values.get(fileId);
-            }
-            if (value != null) {
-                return value;
-            } else {
-                return null;
-            }
+        public ConfigValue get(final ConfigContext context, final String fileId) {
+            return table.get(table.row(context), fileId);
         }
 
         /**
@@ -182,19 +185,172 @@ public class ConfigManagerCache {
             }
         }
 
+        /**
+         * Merges the values of a module loaded separately, with the same
+         * result as if its json was parsed after the json of this module
+         * 
+         * @param other
+         *            module not yet readable
+         */
+        public void merge(final ClassMemConfig other) {
+            if (other.setType != null) {
+                if (setType != null && !setType.equals(other.setType)) {
+                    throw new ConfigRuntimeException("Cannot override registered " + "_Sets_Type_ " + setType + " by "
+                            + other.setType);
+                }
+                setType = other.setType;
+                contextTypes.add(setType);
+            }
+            for (Entry<String, Map<String, JsonElement>> entry : other.keyMap.entrySet()) {
+                Map<String, JsonElement> setValues = keyMap.get(entry.getKey());
+                if (setValues == null) {
+                    keyMap.put(entry.getKey(), new HashMap<String, JsonElement>(entry.getValue()));
+                } else {
+                    setValues.putAll(entry.getValue());
+                }
+            }
+        }
+
         /**
          * Returns the list of content types used by this config object
          * 
          * @return
          */
         public SortedSet<String> getContextTypes() {
-            return contextTypes;
+            return frozenContextTypes != null ? frozenContextTypes : contextTypes;
+        }
+
+        /**
+         * Freezes the context types and sets the module generation, called on
+         * flipCache. If the values did not change since the previous readable
+         * version of the module, the previous generation and context types
+         * instance are kept, so config objects built from it stay valid.
+         * 
+         * @param previous
+         *            readable version of the module, or null
+         */
+        void freeze(final ClassMemConfig previous) {
+            table = new ConfigModuleTable(setType, keyMap);
+            keyMap = null;
+            if (previous != null && previous.sameValues(this)) {
+                frozenContextTypes = previous.getContextTypes();
+                generation = previous.generation;
+            } else {
+                frozenContextTypes = contextTypes.isEmpty() ? EMPTY_SET : Collections
+                        .unmodifiableSortedSet(new TreeSet<String>(contextTypes));
+                generation = generationCounter.incrementAndGet();
+            }
+        }
+
+        private boolean sameValues(final ClassMemConfig other) {
+            return (setType == null ? other.setType == null : setType.equals(other.setType))
+                    && table.equals(other.table);
         }
     }
     public ConfigManagerCache(final ConfigManager configManager) {
         this.configManager = configManager;
     }
 
+    ConfigManager getConfigManager() {
+        return configManager;
+    }
+
+    /** file the readable modules are saved to on every flip, or null */
+    private volatile File snapshotFile = null;
+
+    /**
+     * Saves the readable modules to file on every flip from now on
+     * 
+     * @param file
+     *            snapshot file, null to stop saving snapshots
+     */
+    public void setSnapshotFile(final File file) {
+        snapshotFile = file;
+    }
+
+    /**
+     * Makes the modules of a snapshot written by a previous run readable, see
+     * {@link #setSnapshotFile(File)}
+     * 
+     * @param file
+     * @return true if the snapshot was loaded, false if it is missing or
+     *         invalid
+     */
+    public boolean loadSnapshot(@Nonnull final File file) {
+        if (!ConfigSnapshot.read(file, this)) {
+            return false;
+        }
+        flipCache();
+        logger.info("Loaded config snapshot " + file);
+        return true;
+    }
+
+    /** readable modules waiting to be saved, null if none are */
+    private final AtomicReference<Map<String, ClassMemConfig>> pendingSnapshot = new AtomicReference<Map<String, ClassMemConfig>>();
+
+    /**
+     * Writes the snapshots of all caches on one daemon thread, in the order
+     * they were requested
+     */
+    private static final class SnapshotWriter {
+        private static final ExecutorService EXECUTOR = Executors
+                .newSingleThreadExecutor(new ExecutorThreadFactory("jconfig-snapshot"));
+    }
+
+    /**
+     * Saves readableCache in the background. Called under writeLock, so the
+     * latest pending modules are the latest readable ones. Flips while a save
+     * is pending replace its modules, only the latest are written.
+     */
+    private void saveSnapshot(final Map<String, ClassMemConfig> readableCache) {
+        if (snapshotFile == null) {
+            return;
+        }
+        if (pendingSnapshot.getAndSet(readableCache) == null) {
+            SnapshotWriter.EXECUTOR.execute(new Runnable() {
+                @Override
+                public void run() {
+                    writeSnapshot();
+                }
+            });
+        }
+    }
+
+    /**
+     * Waits until the snapshots requested so far are written
+     */
+    void awaitSnapshot() throws InterruptedException {
+        try {
+            SnapshotWriter.EXECUTOR.submit(new Runnable() {
+                @Override
+                public void run() {
+                }
+            }).get();
+        } catch (ExecutionException e) {
+            throw new ConfigRuntimeException("Failed to wait for the config snapshot", e);
+        }
+    }
+
+    private void writeSnapshot() {
+        Map<String, ClassMemConfig> readableCache = pendingSnapshot.getAndSet(null);
+        File file = snapshotFile;
+        if (readableCache == null || file == null) {
+            return;
+        }
+        // readable modules are frozen, their tables do not change
+        Map<String, JsonObject> modules = new TreeMap<String, JsonObject>();
+        for (Entry<String, ClassMemConfig> entry : readableCache.entrySet()) {
+            modules.put(entry.getKey(), entry.getValue().table.toJson());
+        }
+        try {
+            ConfigSnapshot.write(file, modules);
+        } catch (IOException e) {
+            logger.warn("Failed to write config snapshot " + file, e);
+        } catch (RuntimeException e) {
+            logger.warn("Failed to write config snapshot " + file, e);
+        }
+    }
+
     /*
      * (non-Javadoc)
      * 
@@ -217,18 +373,44 @@ public class ConfigManagerCache {
         } else {
             return defaultValue;
         }
-        JsonElement value = classConfig.get(context, field);
+        ConfigValue value = classConfig.get(context, field);
         if (value == null) {
             return defaultValue;
         } else {
-            if (value.isJsonPrimitive()) {
-                return value.getAsJsonPrimitive().getAsString();
-            } else if (value.isJsonObject()) {
-                return value.getAsJsonObject().toString();
-            } else {
+            return value.getRaw();
+        }
+    }
+
+    /**
+     * Returns the value of the first of keyNames defined for the config
+     * object in context. The set selected by context is resolved once for all
+     * keyNames.
+     * 
+     * @param config
+     *            config object
+     * @param context
+     * @param keyNames
+     *            names to look up, in order
+     * @return value or null if none of keyNames is defined
+     */
+    public ConfigValue getValue(final Object config, final ConfigContext context, final String[] keyNames) {
+        Map<String, ClassMemConfig> localCache = readableCacheRef.get();
+        ClassMemConfig classConfig = localCache.get(config.getClass().getName());
+        if (classConfig == null) {
+            classConfig = localCache.get(CONST._PROP_.toString());
+            if (classConfig == null) {
                 return null;
             }
         }
+        ConfigModuleTable table = classConfig.table;
+        int row = table.row(context);
+        for (String keyName : keyNames) {
+            ConfigValue value = table.get(row, keyName);
+            if (value != null) {
+                return value;
+            }
+        }
+        return null;
     }
 
     /**
@@ -255,7 +437,28 @@ public class ConfigManagerCache {
         return classConfig.getContextTypes();
     }
 
-    private final SortedSet<String> EMPTY_SET = Collections.unmodifiableSortedSet(new TreeSet<String>());
+    /**
+     * Returns the generation of the module values used to build config objects
+     * of the class. The generation changes on flipCache only if the module
+     * values changed, were added or were removed. Modules that are not loaded
+     * have generation 0.
+     * 
+     * @param classDefinition
+     * @return module generation
+     */
+    public <T> long getGeneration(final Class<T> classDefinition) {
+        Map<String, ClassMemConfig> localCache = readableCacheRef.get();
+        ClassMemConfig classConfig = localCache.get(classDefinition.getName());
+        if (classConfig == null) {
+            classConfig = localCache.get(CONST._PROP_.toString());
+        }
+        return classConfig == null ? 0 : classConfig.generation;
+    }
+
+    /** Generations are unique across modules and ConfigManagerCache instances */
+    private static final AtomicLong generationCounter = new AtomicLong();
+
+    private static final SortedSet<String> EMPTY_SET = Collections.unmodifiableSortedSet(new TreeSet<String>());
 
     /**
      * /** Add/update an autoConf value to our memory structure. Gets called via
@@ -288,7 +491,46 @@ public class ConfigManagerCache {
         }
         JsonParser parser = new JsonParser();
         JsonObject json = (JsonObject) parser.parse(jsonValue);
+        saveValue(moduleName, json);
+    }
 
+    /**
+     * Add/update a config value already parsed, used by the config adapters
+     * to hand over their json tree without serializing it again. Values of
+     * json are kept by the cache, json must not be modified after this call.
+     * 
+     * @param moduleName
+     *            Module for which value needs to be set
+     * @param json
+     *            Config value, same format as for
+     *            {@link #insertValue(String, String)}
+     */
+    public void insertValue(@Nonnull final String moduleName, @Nonnull final JsonObject json) {
+        if (logger.isDebugEnabled()) {
+            logger.debug("Set value " + json + " for module " + moduleName);
+        }
+        saveValue(moduleName, json);
+    }
+
+    /**
+     * Add/update the values of several modules in one call, used by the
+     * ConfigLoader to push all the modules of an application at once. Nothing
+     * is inserted if payload is invalid.
+     * 
+     * @param payload
+     *            document in config file format, {"Modules": { module name :
+     *            value, ... }}, values in the format of
+     *            {@link #insertValue(String, String)}
+     * @throws ConfigException
+     *             if payload is not valid json or has no Modules
+     */
+    public void insertModules(@Nonnull final String payload) throws ConfigException {
+        ConfigManagerCache staged = new ConfigManagerCache(configManager);
+        ConfigAdapterJson.readModules(new StringReader(payload), "ConfigLoader payload", staged);
+        merge(staged);
+    }
+
+    private void saveValue(final String moduleName, final JsonObject json) {
         // Block all writers on a flipcache operation
         synchronized (writeLock) {
             if (writableCache.containsKey(moduleName)) {
@@ -301,17 +543,137 @@ public class ConfigManagerCache {
 
     private final Object writeLock = new Object();
 
+    /** version of the modules last set by {@link #replaceModules}, guarded by writeLock */
+    private volatile long modulesVersion = 0;
+
+    /**
+     * @return version of the modules last set by {@link #replaceModules}, 0
+     *         if none were
+     */
+    public long getModulesVersion() {
+        return modulesVersion;
+    }
+
+    /**
+     * Makes the modules of payload the readable modules, if version is newer
+     * than the version of the modules already set this way. The payload is
+     * parsed and validated before the readable modules are swapped, modules
+     * written with insertValue are left as they are.
+     * 
+     * @param version
+     *            version of payload
+     * @param payload
+     *            document in config file format, see
+     *            {@link #insertModules(String)}
+     * @return false if version is not newer, nothing was changed
+     * @throws ConfigException
+     *             if payload is not valid, nothing was changed
+     */
+    public boolean replaceModules(final long version, @Nonnull final String payload) throws ConfigException {
+        // stale or duplicate versions are rejected before parsing
+        if (version <= modulesVersion) {
+            return false;
+        }
+        ConfigManagerCache staged = new ConfigManagerCache(configManager);
+        ConfigAdapterJson.readModules(new StringReader(payload), "ConfigLoader payload", staged);
+        synchronized (writeLock) {
+            if (version <= modulesVersion) {
+                return false;
+            }
+            Map<String, ClassMemConfig> previousCache = readableCacheRef.get();
+            ConcurrentHashMap<String, ClassMemConfig> newReadableCache = new ConcurrentHashMap<String, ClassMemConfig>();
+            synchronized (staged.writeLock) {
+                for (Entry<String, ClassMemConfig> entry : staged.writableCache.entrySet()) {
+                    entry.getValue().freeze(previousCache.get(entry.getKey()));
+                    newReadableCache.put(entry.getKey(), entry.getValue());
+                }
+                staged.writableCache.clear();
+            }
+            readableCacheRef.lazySet(newReadableCache);
+            modulesVersion = version;
+            saveSnapshot(newReadableCache);
+            configManager.setLoadingDone();
+        }
+        logger.info("Loading config values version " + version + " from JMX. " + readableCacheRef.get().toString());
+        return true;
+    }
+
     public void flipCache() {
         synchronized (writeLock) {
+            Map<String, ClassMemConfig> previousCache = readableCacheRef.get();
+            for (Entry<String, ClassMemConfig> entry : writableCache.entrySet()) {
+                entry.getValue().freeze(previousCache.get(entry.getKey()));
+            }
             ConcurrentHashMap<String, ClassMemConfig> newReadableCache = new ConcurrentHashMap<String, ClassMemConfig>(
                     writableCache);
             writableCache.clear();
             readableCacheRef.lazySet(newReadableCache);
+            saveSnapshot(newReadableCache);
             configManager.setLoadingDone();
         }
         logger.info("Loading new config values from JMX. " + readableCacheRef.get().toString());
     }
 
+    /**
+     * Moves the modules written to staged to the modules written to this
+     * cache. Modules written to both are merged, the values of staged win.
+     * Used to load config files in parallel and flip once.
+     * 
+     * @param staged
+     *            cache the modules were inserted into, its written modules are
+     *            cleared
+     */
+    public void merge(@Nonnull final ConfigManagerCache staged) {
+        synchronized (writeLock) {
+            synchronized (staged.writeLock) {
+                for (Entry<String, ClassMemConfig> entry : staged.writableCache.entrySet()) {
+                    ClassMemConfig current = writableCache.get(entry.getKey());
+                    if (current == null) {
+                        writableCache.put(entry.getKey(), entry.getValue());
+                    } else {
+                        current.merge(entry.getValue());
+                    }
+                }
+                staged.writableCache.clear();
+            }
+        }
+    }
+
+    /**
+     * Makes the modules written to staged readable in addition to the modules
+     * already readable, without a full flipCache. Used to load the modules of
+     * a single config class. A module already readable, like the _prop_
+     * module shared by all properties files, is merged with the staged one as
+     * {@link #merge(ConfigManagerCache)} does, the values of staged win.
+     * 
+     * @param staged
+     *            cache the modules were inserted into, its written modules are
+     *            cleared
+     */
+    public void publish(@Nonnull final ConfigManagerCache staged) {
+        synchronized (writeLock) {
+            Map<String, ClassMemConfig> previousCache = readableCacheRef.get();
+            ConcurrentHashMap<String, ClassMemConfig> newReadableCache = new ConcurrentHashMap<String, ClassMemConfig>(
+                    previousCache);
+            synchronized (staged.writeLock) {
+                for (Entry<String, ClassMemConfig> entry : staged.writableCache.entrySet()) {
+                    ClassMemConfig previous = previousCache.get(entry.getKey());
+                    ClassMemConfig module = entry.getValue();
+                    if (previous != null) {
+                        // readable modules only keep their table, rebuild the values from it
+                        module = new ClassMemConfig(previous.table.toJson());
+                        module.merge(entry.getValue());
+                    }
+                    module.freeze(previous);
+                    newReadableCache.put(entry.getKey(), module);
+                }
+                staged.writableCache.clear();
+            }
+            readableCacheRef.lazySet(newReadableCache);
+            saveSnapshot(newReadableCache);
+        }
+    }
+
     /**
      * Checks if module is loaded
      * @param config
@@ -0,0 +1,201 @@
+package org.commons.jconfig.internal;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.Immutable;
+
+import org.commons.jconfig.config.ConfigContext;
+import org.commons.jconfig.internal.ConfigAdapterJson.CONST;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonPrimitive;
+
+/**
+ * Read only form of a config module. Values are resolved when the module
+ * becomes readable into a table of set key x key name, so a lookup is a row
+ * probe and a column probe into a flat array.
+ *
+ * Row 0 holds the defaults (_Defs_), the other rows hold the values of one
+ * set key each. Equal values share a single {@link ConfigValue}.
+ */
+@Immutable
+final class ConfigModuleTable {
+
+    private final String setType;
+    /** set key to row index, defaults are not included */
+    private final Map<String, Integer> rows;
+    /** key name to column index */
+    private final Map<String, Integer> columns;
+    private final ConfigValue[] cells;
+
+    /**
+     * @param setType
+     *            set type of the module or null
+     * @param keyMap
+     *            values of the module grouped by set key, see
+     *            ConfigManagerCache
+     */
+    ConfigModuleTable(final String setType, @Nonnull final Map<String, Map<String, JsonElement>> keyMap) {
+        this.setType = setType;
+
+        // sorted, so equal modules build equal tables
+        TreeSet<String> keyNames = new TreeSet<String>();
+        TreeSet<String> setKeys = new TreeSet<String>();
+        for (Map.Entry<String, Map<String, JsonElement>> entry : keyMap.entrySet()) {
+            keyNames.addAll(entry.getValue().keySet());
+            if (!CONST.DEFAULTS.toString().equals(entry.getKey())) {
+                setKeys.add(entry.getKey());
+            }
+        }
+        columns = new HashMap<String, Integer>(keyNames.size() * 2);
+        for (String keyName : keyNames) {
+            columns.put(keyName, columns.size());
+        }
+        rows = new HashMap<String, Integer>(setKeys.size() * 2);
+        for (String setKey : setKeys) {
+            rows.put(setKey, rows.size() + 1);
+        }
+
+        int width = columns.size();
+        cells = new ConfigValue[(rows.size() + 1) * width];
+        Map<String, ConfigValue> shared = new HashMap<String, ConfigValue>();
+        for (Map.Entry<String, Map<String, JsonElement>> entry : keyMap.entrySet()) {
+            Integer row = rows.get(entry.getKey());
+            int offset = row == null ? 0 : row.intValue() * width;
+            for (Map.Entry<String, JsonElement> value : entry.getValue().entrySet()) {
+                String raw = toRaw(value.getValue());
+                if (raw == null) {
+                    continue;
+                }
+                ConfigValue configValue = shared.get(raw);
+                if (configValue == null) {
+                    configValue = new ConfigValue(raw);
+                    shared.put(raw, configValue);
+                }
+                cells[offset + columns.get(value.getKey()).intValue()] = configValue;
+            }
+        }
+    }
+
+    private static String toRaw(final JsonElement value) {
+        if (value.isJsonPrimitive()) {
+            return value.getAsJsonPrimitive().getAsString();
+        } else if (value.isJsonObject()) {
+            return value.getAsJsonObject().toString();
+        }
+        return null;
+    }
+
+    /**
+     * Returns the row of the set key selected by context, 0 if context selects
+     * no set of this module.
+     *
+     * @param context
+     * @return row index
+     */
+    int row(@Nonnull final ConfigContext context) {
+        if (setType == null) {
+            return 0;
+        }
+        Integer row = rows.get(context.get(setType));
+        return row == null ? 0 : row.intValue();
+    }
+
+    /**
+     * Returns the value of keyName in row, falling back to the defaults.
+     *
+     * @param row
+     *            index returned by {@link #row(ConfigContext)}
+     * @param keyName
+     * @return value or null if keyName is not defined
+     */
+    ConfigValue get(final int row, @Nonnull final String keyName) {
+        Integer column = columns.get(keyName);
+        if (column == null) {
+            return null;
+        }
+        ConfigValue value = cells[row * columns.size() + column.intValue()];
+        if (value == null && row != 0) {
+            value = cells[column.intValue()];
+        }
+        return value;
+    }
+
+    /**
+     * Returns the module in the json format of config files. Values are
+     * written in their string form, they are parsed from it anyway.
+     *
+     * @return module json
+     */
+    JsonObject toJson() {
+        JsonObject json = new JsonObject();
+        int width = columns.size();
+        for (Map.Entry<String, Integer> column : columns.entrySet()) {
+            ConfigValue value = cells[column.getValue().intValue()];
+            if (value != null) {
+                json.addProperty(column.getKey(), value.getRaw());
+            }
+        }
+        if (setType != null) {
+            json.addProperty(CONST.SETS_TYPE.toString(), setType);
+            JsonArray sets = new JsonArray();
+            for (Map.Entry<String, Integer> row : new TreeMap<String, Integer>(rows).entrySet()) {
+                JsonObject keyList = new JsonObject();
+                for (Map.Entry<String, Integer> column : columns.entrySet()) {
+                    ConfigValue value = cells[row.getValue().intValue() * width + column.getValue().intValue()];
+                    if (value != null) {
+                        keyList.addProperty(column.getKey(), value.getRaw());
+                    }
+                }
+                JsonArray key = new JsonArray();
+                key.add(new JsonPrimitive(row.getKey()));
+                JsonObject set = new JsonObject();
+                set.add(CONST.KEY.toString(), key);
+                set.add(CONST.KEY_LIST.toString(), keyList);
+                sets.add(set);
+            }
+            json.add(CONST.SETS.toString(), sets);
+        }
+        return json;
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+        if (!(obj instanceof ConfigModuleTable)) {
+            return false;
+        }
+        ConfigModuleTable other = (ConfigModuleTable) obj;
+        return (setType == null ? other.setType == null : setType.equals(other.setType)) && rows.equals(other.rows)
+                && columns.equals(other.columns) && Arrays.equals(cells, other.cells);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(cells);
+    }
+
+    @Override
+    public String toString() {
+        Map<String, Integer> allRows = new TreeMap<String, Integer>(rows);
+        allRows.put(CONST.DEFAULTS.toString(), 0);
+        Map<String, Map<String, ConfigValue>> values = new TreeMap<String, Map<String, ConfigValue>>();
+        for (Map.Entry<String, Integer> row : allRows.entrySet()) {
+            Map<String, ConfigValue> rowValues = new TreeMap<String, ConfigValue>();
+            for (Map.Entry<String, Integer> column : columns.entrySet()) {
+                ConfigValue value = cells[row.getValue().intValue() * columns.size() + column.getValue().intValue()];
+                if (value != null) {
+                    rowValues.put(column.getKey(), value);
+                }
+            }
+            values.put(row.getKey(), rowValues);
+        }
+        return values.toString();
+    }
+}
@@ -0,0 +1,114 @@
+package org.commons.jconfig.internal;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+
+import org.apache.log4j.Logger;
+import org.commons.jconfig.config.ConfigException;
+import org.commons.jconfig.config.ConfigRuntimeException;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonIOException;
+import com.google.gson.JsonObject;
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * Last known good copy of the readable modules of a {@link ConfigManagerCache}.
+ * The snapshot is a compact json document in config file format, so it is
+ * read back like any config file.
+ */
+final class ConfigSnapshot {
+
+    private static final Logger logger = Logger.getLogger(ConfigSnapshot.class);
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private ConfigSnapshot() {
+    }
+
+    /**
+     * Writes modules to file. The file is replaced atomically, a crash during
+     * the write leaves the previous snapshot.
+     *
+     * @param file
+     * @param modules
+     *            module name to module json
+     * @throws IOException
+     */
+    static void write(final File file, final Map<String, JsonObject> modules) throws IOException {
+        File dir = file.getAbsoluteFile().getParentFile();
+        if (dir != null && !dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("Cannot create directory " + dir);
+        }
+        Path temp = Files.createTempFile(dir.toPath(), file.getName(), ".tmp");
+        try {
+            BufferedWriter out = Files.newBufferedWriter(temp, UTF8);
+            try {
+                JsonWriter writer = new JsonWriter(out);
+                Gson gson = new Gson();
+                writer.beginObject();
+                writer.name("Modules");
+                writer.beginObject();
+                for (Map.Entry<String, JsonObject> module : modules.entrySet()) {
+                    writer.name(module.getKey());
+                    gson.toJson(module.getValue(), writer);
+                }
+                writer.endObject();
+                writer.endObject();
+                writer.flush();
+            } catch (JsonIOException e) {
+                throw new IOException("Failed to write snapshot " + file, e);
+            } finally {
+                out.close();
+            }
+            try {
+                Files.move(temp, file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Inserts the modules of the snapshot in file into cache. Nothing is
+     * inserted if the snapshot is missing or invalid.
+     *
+     * @param file
+     * @param cache
+     * @return true if the snapshot was loaded
+     */
+    static boolean read(final File file, final ConfigManagerCache cache) {
+        if (!file.isFile()) {
+            return false;
+        }
+        ConfigManagerCache staged = new ConfigManagerCache(cache.getConfigManager());
+        try {
+            Reader in = ConfigFileSource.openReader(file, UTF8);
+            try {
+                ConfigAdapterJson.readModules(in, file.getPath(), staged);
+            } finally {
+                in.close();
+            }
+        } catch (IOException e) {
+            logger.warn("Failed to read config snapshot " + file, e);
+            return false;
+        } catch (ConfigException e) {
+            logger.warn("Invalid config snapshot " + file, e);
+            return false;
+        } catch (ConfigRuntimeException e) {
+            logger.warn("Invalid config snapshot " + file, e);
+            return false;
+        }
+        cache.merge(staged);
+        return true;
+    }
+}
@@ -0,0 +1,81 @@
+package org.commons.jconfig.internal;
+
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.ThreadSafe;
+
+import org.commons.jconfig.datatype.TypeFormatException;
+import org.commons.jconfig.datatype.ValueType;
+
+/**
+ * A config value stored in {@link ConfigManagerCache}. Keeps the string form
+ * of the value and remembers its last conversion, so config objects built
+ * from the same module do not parse the value again.
+ */
+@ThreadSafe
+public final class ConfigValue {
+
+    private final String raw;
+
+    /** last shared conversion of raw, published together with its type */
+    private volatile Converted converted;
+
+    private static final class Converted {
+        private final ValueType type;
+        private final Object value;
+
+        private Converted(final ValueType type, final Object value) {
+            this.type = type;
+            this.value = value;
+        }
+    }
+
+    ConfigValue(@Nonnull final String raw) {
+        this.raw = raw;
+    }
+
+    /**
+     * @return the value as found in the config source, json objects in their
+     *         json string form
+     */
+    @Nonnull
+    public String getRaw() {
+        return raw;
+    }
+
+    /**
+     * Returns the value converted to the java type of valueType. Json values
+     * are mutable and converted on every call, list values are copied.
+     *
+     * @param valueType
+     * @return converted value
+     * @throws TypeFormatException
+     *             if the value is not valid for valueType
+     */
+    @Nonnull
+    public Object get(@Nonnull final ValueType valueType) {
+        if (!ValueParser.isShareable(valueType)) {
+            return ValueParser.convert(valueType, raw);
+        }
+        Converted local = converted;
+        if (local == null || local.type != valueType) {
+            local = new Converted(valueType, ValueParser.convertShared(valueType, raw));
+            converted = local;
+        }
+        return ValueParser.copy(valueType, local.value);
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+        return obj instanceof ConfigValue && raw.equals(((ConfigValue) obj).raw);
+    }
+
+    @Override
+    public int hashCode() {
+        return raw.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return raw;
+    }
+}
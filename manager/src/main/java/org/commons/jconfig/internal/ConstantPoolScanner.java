@@ -0,0 +1,111 @@
+package org.commons.jconfig.internal;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+/**
+ * Checks the constant pool of a class file for a type descriptor without
+ * loading the class. A class annotated with a runtime visible annotation has
+ * the annotation descriptor in its constant pool, so classes without it can be
+ * skipped by annotation scans. A match still has to be verified on the loaded
+ * class.
+ */
+final class ConstantPoolScanner {
+
+    private static final int MAGIC = 0xCAFEBABE;
+
+    private final byte[] descriptor;
+
+    /**
+     * @param type
+     *            type whose descriptor to look for, e.g. an annotation
+     */
+    ConstantPoolScanner(final Class<?> type) {
+        descriptor = ("L" + type.getName().replace('.', '/') + ";").getBytes(Charset.forName("UTF-8"));
+    }
+
+    /**
+     * Reads the constant pool of the class file in stream. The stream is not
+     * closed.
+     *
+     * @param stream
+     *            class file content
+     * @return false if the constant pool does not contain the descriptor, true
+     *         if it does or the class file could not be read
+     */
+    boolean mayReference(final InputStream stream) {
+        try {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(stream));
+            if (in.readInt() != MAGIC) {
+                return true;
+            }
+            // minor and major version
+            in.readInt();
+            int count = in.readUnsignedShort();
+            byte[] utf8 = new byte[descriptor.length];
+            for (int i = 1; i < count; i++) {
+                int tag = in.readUnsignedByte();
+                switch (tag) {
+                case 1: // Utf8
+                    int length = in.readUnsignedShort();
+                    if (length == descriptor.length) {
+                        in.readFully(utf8);
+                        if (Arrays.equals(utf8, descriptor)) {
+                            return true;
+                        }
+                    } else {
+                        skipFully(in, length);
+                    }
+                    break;
+                case 7: // Class
+                case 8: // String
+                case 16: // MethodType
+                case 19: // Module
+                case 20: // Package
+                    skipFully(in, 2);
+                    break;
+                case 15: // MethodHandle
+                    skipFully(in, 3);
+                    break;
+                case 3: // Integer
+                case 4: // Float
+                case 9: // Fieldref
+                case 10: // Methodref
+                case 11: // InterfaceMethodref
+                case 12: // NameAndType
+                case 17: // Dynamic
+                case 18: // InvokeDynamic
+                    skipFully(in, 4);
+                    break;
+                case 5: // Long
+                case 6: // Double
+                    skipFully(in, 8);
+                    // takes two entries
+                    i++;
+                    break;
+                default:
+                    // unknown class file format, let the class loader decide
+                    return true;
+                }
+            }
+            return false;
+        } catch (IOException e) {
+            return true;
+        }
+    }
+
+    private static void skipFully(final DataInputStream in, final int length) throws IOException {
+        int skipped = 0;
+        while (skipped < length) {
+            int n = in.skipBytes(length - skipped);
+            if (n <= 0) {
+                throw new IOException("Unexpected end of class file");
+            }
+            skipped += n;
+        }
+    }
+}
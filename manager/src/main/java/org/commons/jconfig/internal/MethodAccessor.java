@@ -0,0 +1,47 @@
+package org.commons.jconfig.internal;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+/**
+ * Invocation layer for config getters and setters. Implementations are created
+ * by {@link MethodAccessors} and are safe to share between threads.
+ *
+ * Both methods follow the {@link Method#invoke(Object, Object...)} contract:
+ * exceptions thrown by the target method are wrapped in
+ * {@link InvocationTargetException}, a wrong receiver or argument type throws
+ * {@link IllegalArgumentException}.
+ *
+ * @author lafa
+ */
+public interface MethodAccessor {
+
+    /**
+     * @return the method this accessor invokes
+     */
+    Method getMethod();
+
+    /**
+     * Invokes a method without arguments, usually a getter.
+     *
+     * @param target
+     *            receiver, ignored for static methods
+     * @return method return value, null for void methods
+     * @throws IllegalAccessException
+     * @throws InvocationTargetException
+     */
+    Object invoke(Object target) throws IllegalAccessException, InvocationTargetException;
+
+    /**
+     * Invokes a method with one argument, usually a setter.
+     *
+     * @param target
+     *            receiver, ignored for static methods
+     * @param arg
+     *            method argument
+     * @return method return value, null for void methods
+     * @throws IllegalAccessException
+     * @throws InvocationTargetException
+     */
+    Object invoke(Object target, Object arg) throws IllegalAccessException, InvocationTargetException;
+}
@@ -0,0 +1,179 @@
+package org.commons.jconfig.internal;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+import javax.annotation.Nonnull;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Creates {@link MethodAccessor} instances. Public getters and setters are
+ * invoked through a {@link MethodHandle} adapted to a generic signature, which
+ * avoids the argument array and the access checks of
+ * {@link Method#invoke(Object, Object...)}. Methods the public lookup cannot
+ * access, methods with primitive or more than one parameter use the reflective
+ * accessor.
+ *
+ * The reflective path can be forced with the system property
+ * {@value #REFLECTIVE_PROPERTY}=true.
+ *
+ * @author lafa
+ */
+public final class MethodAccessors {
+
+    /** System property to disable method handle accessors */
+    public static final String REFLECTIVE_PROPERTY = "jconfig.accessor.reflective";
+
+    private static final Logger logger = Logger.getLogger(MethodAccessors.class);
+
+    private static final Object[] NO_ARGS = new Object[0];
+
+    private MethodAccessors() {
+    }
+
+    /**
+     * Returns the fastest accessor available for the method.
+     *
+     * @param method
+     * @return accessor for method
+     */
+    @Nonnull
+    public static MethodAccessor of(@Nonnull final Method method) {
+        if (!Boolean.getBoolean(REFLECTIVE_PROPERTY) && HandleAccessor.supports(method)) {
+            try {
+                return new HandleAccessor(method);
+            } catch (IllegalAccessException e) {
+                if (logger.isDebugEnabled()) {
+                    logger.debug("Using reflection to access " + method, e);
+                }
+            }
+        }
+        return reflective(method);
+    }
+
+    /**
+     * Returns an accessor using {@link Method#invoke(Object, Object...)}.
+     *
+     * @param method
+     * @return accessor for method
+     */
+    @Nonnull
+    public static MethodAccessor reflective(@Nonnull final Method method) {
+        return new ReflectiveAccessor(method);
+    }
+
+    private static final class ReflectiveAccessor implements MethodAccessor {
+        private final Method method;
+
+        ReflectiveAccessor(final Method method) {
+            this.method = method;
+        }
+
+        @Override
+        public Method getMethod() {
+            return method;
+        }
+
+        @Override
+        public Object invoke(final Object target) throws IllegalAccessException, InvocationTargetException {
+            return method.invoke(target, NO_ARGS);
+        }
+
+        @Override
+        public Object invoke(final Object target, final Object arg) throws IllegalAccessException,
+        InvocationTargetException {
+            return method.invoke(target, new Object[] { arg });
+        }
+
+        @Override
+        public String toString() {
+            return "ReflectiveAccessor[" + method + "]";
+        }
+    }
+
+    private static final class HandleAccessor implements MethodAccessor {
+        private final Method method;
+        /** Receiver type, null for static methods */
+        private final Class<?> receiverType;
+        /** Parameter type, null for methods without parameters */
+        private final Class<?> paramType;
+        /** Handle of type (Object)Object or (Object,Object)Object */
+        private final MethodHandle handle;
+
+        static boolean supports(final Method method) {
+            Class<?>[] params = method.getParameterTypes();
+            return params.length == 0 || (params.length == 1 && !params[0].isPrimitive());
+        }
+
+        HandleAccessor(final Method method) throws IllegalAccessException {
+            this.method = method;
+            MethodHandle mh = MethodHandles.publicLookup().unreflect(method);
+            if (Modifier.isStatic(method.getModifiers())) {
+                receiverType = null;
+                mh = MethodHandles.dropArguments(mh, 0, Object.class);
+            } else {
+                receiverType = method.getDeclaringClass();
+            }
+            Class<?>[] params = method.getParameterTypes();
+            paramType = params.length == 0 ? null : params[0];
+            handle = mh.asType(MethodType.genericMethodType(params.length + 1));
+        }
+
+        @Override
+        public Method getMethod() {
+            return method;
+        }
+
+        @Override
+        public Object invoke(final Object target) throws InvocationTargetException {
+            if (paramType != null) {
+                throw new IllegalArgumentException("wrong number of arguments for " + method);
+            }
+            checkReceiver(target);
+            try {
+                return handle.invokeExact(target);
+            } catch (Throwable e) {
+                throw new InvocationTargetException(e);
+            }
+        }
+
+        @Override
+        public Object invoke(final Object target, final Object arg) throws InvocationTargetException {
+            if (paramType == null) {
+                throw new IllegalArgumentException("wrong number of arguments for " + method);
+            }
+            checkReceiver(target);
+            if (arg != null && !paramType.isInstance(arg)) {
+                throw new IllegalArgumentException("argument type mismatch for " + method + ": "
+                        + arg.getClass().getName());
+            }
+            try {
+                return handle.invokeExact(target, arg);
+            } catch (Throwable e) {
+                throw new InvocationTargetException(e);
+            }
+        }
+
+        private void checkReceiver(final Object target) {
+            if (receiverType != null) {
+                if (target == null) {
+                    throw new NullPointerException("null receiver for " + method);
+                }
+                if (!receiverType.isInstance(target)) {
+                    throw new IllegalArgumentException("object is not an instance of declaring class "
+                            + receiverType.getName());
+                }
+            }
+        }
+
+        @Override
+        public String toString() {
+            return "HandleAccessor[" + method + "]";
+        }
+    }
+}
@@ -3,17 +3,40 @@ package org.commons.jconfig.internal;
 import java.io.File;
 import java.io.FilenameFilter;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.net.MalformedURLException;
+import java.net.URISyntaxException;
 import java.net.URL;
 import java.net.URLClassLoader;
+import java.nio.charset.Charset;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
 import java.util.Enumeration;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
 
@@ -33,15 +56,12 @@ public class ScanClassPath<T extends Annotation> {
     
     private final Set<String> allowFilter = new HashSet<String>();
 
-    /**
-     * Set of all the resource paths which will be scanned. This set is build as
-     * and when paths are scanned and will block scanning the same path again
-     * thereby avoiding recursion.
-     */
-    private final Set<String> dirLookupSet = new HashSet<String>(); 
-    
+    /** finds classes that may carry the annotation without loading them */
+    private final ConstantPoolScanner annotationScanner;
+
     private ScanClassPath(final Class<T> annoClazz) {
         this.annoClazz = annoClazz;
+        this.annotationScanner = new ConstantPoolScanner(annoClazz);
         String[] packageFilter = { "java.", "javax.", "org.ietf.jgss", "org.omg.", "org.w3c.dom.", "org.xml.sax.",
                 "sun.tools.", "sun.jvmstat.", "com.sun.", "org.junit.", "org.testng.", "bsh.", "org.relaxng.",
                 "mockit.", "com.beust.", "org.apache.log4j." };
@@ -122,67 +142,395 @@ public class ScanClassPath<T extends Annotation> {
      * @throws ClassNotFoundException
      */
     public Set<Class<?>> scanJarAnnotatedClasses(final JarFile jar) throws IOException {
-        Set<Class<?>> clazzez = new HashSet<Class<?>>();
-        Enumeration<JarEntry> it = jar.entries();
-        while (it.hasMoreElements()) {
-            JarEntry jarEntry = it.nextElement();
-            if (jarEntry.getName().endsWith(".class")) {
-                String className = jarEntry.getName().replaceAll("/", "\\.");
-                Class<?> clazz = applyFilter(className.substring(0, className.length() - 6));
-                if (clazz != null) {
-                    clazzez.add(clazz);
+        return loadAnnotatedClasses(scanJarCandidates(jar));
+    }
+
+    /**
+     * Returns all the classes in the classpath that are annotated. Every jar
+     * and directory of the classpath is scanned on its own fork-join task.
+     * When the scan cache is enabled, jars that did not change since the
+     * previous scan are read from it, see {@link #SCAN_CACHE_PROPERTY}.
+     */
+    public Set<Class<?>> scanAnnotatedClasses() {
+        return scanRootsAnnotatedClasses(getClassPathRoots());
+    }
+
+    /**
+     * Returns all the classes in the classpath that are annotated, reading the
+     * classes of a classpath root from its index resource, see
+     * {@link ConfigIndexProcessor}. Roots without an index are scanned as by
+     * {@link #scanAnnotatedClasses()}.
+     * 
+     * @param indexResource
+     *            classpath resource name of the index
+     * @return annotated classes
+     */
+    public Set<Class<?>> scanAnnotatedClasses(final String indexResource) {
+        Set<Path> indexedRoots = new HashSet<Path>();
+        Set<String> classNames = readIndexes(indexResource, indexedRoots);
+        if (classNames == null) {
+            return scanAnnotatedClasses();
+        }
+        Map<Path, String> roots = getClassPathRoots();
+        for (Iterator<Path> it = roots.keySet().iterator(); it.hasNext();) {
+            Path root = it.next();
+            for (Path indexedRoot : indexedRoots) {
+                if (root.startsWith(indexedRoot)) {
+                    it.remove();
+                    break;
                 }
             }
         }
+        if (!roots.isEmpty()) {
+            logger.warn("No " + indexResource + " in " + roots.keySet() + ", scanning them");
+        }
+        Set<Class<?>> clazzez = loadAnnotatedClasses(classNames);
+        clazzez.addAll(scanRootsAnnotatedClasses(roots));
         return clazzez;
     }
 
     /**
-     * Returns all the classes in the classpath that are annotated.
+     * Returns the annotated classes listed in the index resources on the
+     * classpath, see {@link ConfigIndexProcessor}. Listed classes that can not
+     * be loaded or are not annotated are skipped.
+     * 
+     * @param indexResource
+     *            classpath resource name of the index
+     * @return annotated classes or null if there is no index on the classpath
      */
-    public Set<Class<?>> scanAnnotatedClasses() {
-        Set<Class<?>> clazzez = new HashSet<Class<?>>();
-        clazzez.addAll(scanPackagesAnnotatedClasses());
-        clazzez.addAll(scanURLClassLoaderAnnotatedClasses());
-        return clazzez;
+    public Set<Class<?>> scanIndexedAnnotatedClasses(final String indexResource) {
+        Set<String> classNames = readIndexes(indexResource, new HashSet<Path>());
+        if (classNames == null) {
+            return null;
+        }
+        return loadAnnotatedClasses(classNames);
     }
 
-    private Set<Class<?>> scanPackagesAnnotatedClasses() {
-        Set<Class<?>> clazzez = new HashSet<Class<?>>();
+    /**
+     * Reads the class names of all the index resources on the classpath
+     * 
+     * @param indexResource
+     *            classpath resource name of the index
+     * @param indexedRoots
+     *            the jars and directories containing an index are added to it
+     * @return class names or null if there is no readable index on the
+     *         classpath
+     */
+    private Set<String> readIndexes(final String indexResource, final Set<Path> indexedRoots) {
+        ClassLoader classLoader = getScanClassLoader();
+        Set<String> classNames = new HashSet<String>();
+        boolean found = false;
+        try {
+            Enumeration<URL> indexes = classLoader.getResources(indexResource);
+            while (indexes.hasMoreElements()) {
+                URL index = indexes.nextElement();
+                Reader reader = new InputStreamReader(index.openStream(), Charset.forName("UTF-8"));
+                try {
+                    classNames.addAll(ConfigIndexProcessor.readIndex(reader));
+                    found = true;
+                } finally {
+                    reader.close();
+                }
+                Path root = getIndexRoot(index, indexResource);
+                if (root != null) {
+                    indexedRoots.add(root);
+                }
+            }
+        } catch (IOException e) {
+            logger.warn("Failed to read " + indexResource + ", scanning classpath", e);
+            return null;
+        }
+        return found ? classNames : null;
+    }
+
+    /**
+     * Returns the jar or directory of an index resource
+     * 
+     * @return path or null if the index is not a local file
+     */
+    private Path getIndexRoot(final URL index, final String indexResource) {
+        String spec = index.toString();
+        if (!spec.endsWith(indexResource)) {
+            return null;
+        }
+        try {
+            return toPath(new URL(spec.substring(0, spec.length() - indexResource.length())));
+        } catch (MalformedURLException e) {
+            logger.debug("Skipping index " + index, e);
+            return null;
+        }
+    }
+
+    /**
+     * @return classpath roots mapped to the package of their classes
+     */
+    private Map<Path, String> getClassPathRoots() {
+        Map<Path, String> roots = new LinkedHashMap<Path, String>();
+        addClassLoaderRoots(roots);
+        addPackageRoots(roots);
+        return roots;
+    }
+
+    /**
+     * Scans every jar and directory on its own fork-join task, jars that did
+     * not change since the previous scan are read from the scan cache
+     */
+    private Set<Class<?>> scanRootsAnnotatedClasses(final Map<Path, String> roots) {
+        final ScanResultCache cache = openScanCache();
+        Set<String> candidates = new HashSet<String>();
+        ForkJoinPool pool = new ForkJoinPool(Math.max(1,
+                Math.min(roots.size(), Runtime.getRuntime().availableProcessors())));
+        try {
+            List<ForkJoinTask<List<String>>> tasks = new ArrayList<ForkJoinTask<List<String>>>();
+            for (final Map.Entry<Path, String> root : roots.entrySet()) {
+                tasks.add(pool.submit(new Callable<List<String>>() {
+                    @Override
+                    public List<String> call() {
+                        return scanRootCandidates(root.getKey(), root.getValue(), cache);
+                    }
+                }));
+            }
+            for (ForkJoinTask<List<String>> task : tasks) {
+                candidates.addAll(task.join());
+            }
+        } finally {
+            pool.shutdown();
+        }
+        if (cache != null) {
+            cache.save();
+        }
+        return loadAnnotatedClasses(candidates);
+    }
+
+    /**
+     * system property with the scan cache file, the cache is disabled when it
+     * is not set, empty or "none". Cached jars are only checked for size and
+     * modification time, the file must not be writable by other users.
+     */
+    public static final String SCAN_CACHE_PROPERTY = "jconfig.scan.cache";
+
+    private ScanResultCache openScanCache() {
+        String cacheFile = System.getProperty(SCAN_CACHE_PROPERTY);
+        if (cacheFile == null || cacheFile.isEmpty() || "none".equals(cacheFile)) {
+            return null;
+        }
+        return ScanResultCache.load(new File(cacheFile));
+    }
+
+    /**
+     * Description of the filters applied by a scan, scan results are only
+     * reused by scans with the same filters
+     */
+    private String getFilterKey() {
+        Set<String> filters = new TreeSet<String>(allowFilter.isEmpty() ? excludeFilter : allowFilter);
+        return annoClazz.getName() + (allowFilter.isEmpty() ? "-" : "+") + filters;
+    }
+
+    private void addPackageRoots(final Map<Path, String> roots) {
         Package[] packages = Package.getPackages();
         for (Package lPackage : packages) {
             try {
-                clazzez.addAll(scanPackageAnnotatedClasses(lPackage));
+                Enumeration<URL> resources = Thread.currentThread().getContextClassLoader()
+                        .getResources(lPackage.getName().replace('.', '/'));
+                while (resources.hasMoreElements()) {
+                    addRoot(roots, resources.nextElement(), lPackage.getName());
+                }
             } catch (IOException e) {
                 logger.warn("ScanConfigClasses failed for package: " + lPackage.getName(), e);
             }
         }
-        return clazzez;
     }
 
-    private Set<Class<?>> scanURLClassLoaderAnnotatedClasses() {
-        final ClassLoader classLoader = this.getClass().getClassLoader();
-        if (!(classLoader instanceof URLClassLoader)) {
-            throw new IllegalArgumentException("Classloader is not a URL classloader");
+    private void addClassLoaderRoots(final Map<Path, String> roots) {
+        final ClassLoader classLoader = getScanClassLoader();
+        for (ClassPathLocator locator : ClassPathLocators.getLocators(classLoader)) {
+            try {
+                for (URL url : locator.getClassPathRoots(classLoader)) {
+                    addRoot(roots, url, "");
+                }
+            } catch (RuntimeException e) {
+                logger.warn("ClassPathLocator " + locator.getClass().getName() + " failed", e);
+            }
         }
-        final URLClassLoader urlClassLoader = (URLClassLoader) classLoader;
-        URL[] urls = urlClassLoader.getURLs();
+    }
+
+    /**
+     * Adds the jar or directory of url, directories inside an already added
+     * directory are skipped
+     */
+    private void addRoot(final Map<Path, String> roots, final URL url, final String packageName) {
+        Path path = toPath(url);
+        if (path == null || roots.containsKey(path)) {
+            return;
+        }
+        if ("jar".equals(url.getProtocol())) {
+            // the whole jar is scanned
+            roots.put(path, "");
+            return;
+        }
+        for (Path root : roots.keySet()) {
+            if (path.startsWith(root) && Files.isDirectory(root)) {
+                return;
+            }
+        }
+        roots.put(path, packageName);
+    }
+
+    /**
+     * Returns the file of a file: url, or the jar file of a jar: url
+     * 
+     * @param url
+     * @return path or null if url is not a local file
+     */
+    private Path toPath(final URL url) {
+        URL fileUrl = url;
+        try {
+            if ("jar".equals(url.getProtocol())) {
+                // jar:file:/path/app.jar!/org/commons
+                String spec = url.getPath();
+                int separator = spec.indexOf("!/");
+                fileUrl = new URL(separator < 0 ? spec : spec.substring(0, separator));
+            }
+            if (!"file".equals(fileUrl.getProtocol())) {
+                logger.debug("Skipping classpath url " + url);
+                return null;
+            }
+            return Paths.get(fileUrl.toURI());
+        } catch (MalformedURLException e) {
+            logger.debug("Skipping classpath url " + url, e);
+        } catch (URISyntaxException e) {
+            // not encoded, e.g. spaces in the path
+            return new File(fileUrl.getPath()).toPath();
+        } catch (IllegalArgumentException e) {
+            logger.debug("Skipping classpath url " + url, e);
+        }
+        return null;
+    }
+
+    /**
+     * Returns the names of the classes of a jar or directory that may carry
+     * the annotation, see {@link ConstantPoolScanner}.
+     * 
+     * @param root
+     *            jar or directory
+     * @param packageName
+     *            package of the classes in directory root
+     * @param cache
+     *            jar scan results or null
+     * @return class names
+     */
+    private List<String> scanRootCandidates(final Path root, final String packageName, final ScanResultCache cache) {
+        try {
+            if (Files.isDirectory(root)) {
+                return scanDirectoryCandidates(root, packageName);
+            } else if (Files.isRegularFile(root)) {
+                return scanJarCandidates(root, cache);
+            }
+        } catch (IOException e) {
+            // Ignore IOException and continue with the other roots
+            logger.trace("Unable to search " + root + " for annotations", e);
+        }
+        return Collections.emptyList();
+    }
+
+    private List<String> scanJarCandidates(final Path path, final ScanResultCache cache) throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        long modified = attributes.lastModifiedTime().toMillis();
+        String filterKey = getFilterKey();
+        List<String> candidates = cache == null ? null : cache.get(path, attributes.size(), modified, filterKey);
+        if (candidates == null) {
+            JarFile jar = new JarFile(path.toFile());
+            try {
+                candidates = scanJarCandidates(jar);
+            } finally {
+                jar.close();
+            }
+            if (cache != null) {
+                cache.put(path, attributes.size(), modified, filterKey, candidates);
+            }
+        }
+        return candidates;
+    }
+
+    private List<String> scanJarCandidates(final JarFile jar) throws IOException {
+        List<String> candidates = new ArrayList<String>();
+        Enumeration<JarEntry> it = jar.entries();
+        while (it.hasMoreElements()) {
+            JarEntry jarEntry = it.nextElement();
+            if (jarEntry.getName().endsWith(".class")) {
+                String className = jarEntry.getName().replace('/', '.');
+                className = className.substring(0, className.length() - 6);
+                if (isAllowed(className) && mayBeAnnotated(jar.getInputStream(jarEntry))) {
+                    candidates.add(className);
+                }
+            }
+        }
+        return candidates;
+    }
+
+    private List<String> scanDirectoryCandidates(final Path directory, final String packageName)
+            throws IOException {
+        final List<String> candidates = new ArrayList<String>();
+        final String prefix = packageName.isEmpty() ? "" : packageName + ".";
+        Files.walkFileTree(directory, EnumSet.of(FileVisitOption.FOLLOW_LINKS), Integer.MAX_VALUE,
+                new SimpleFileVisitor<Path>() {
+                    @Override
+                    public FileVisitResult visitFile(final Path file, final BasicFileAttributes attrs)
+                            throws IOException {
+                        String relative = directory.relativize(file).toString();
+                        if (relative.endsWith(".class")) {
+                            String className = prefix
+                                    + relative.substring(0, relative.length() - 6).replace(File.separatorChar, '.');
+                            if (isAllowed(className) && mayBeAnnotated(Files.newInputStream(file))) {
+                                candidates.add(className);
+                            }
+                        }
+                        return FileVisitResult.CONTINUE;
+                    }
+
+                    @Override
+                    public FileVisitResult visitFileFailed(final Path file, final IOException e) {
+                        // unreadable files and symbolic link cycles
+                        return FileVisitResult.CONTINUE;
+                    }
+                });
+        return candidates;
+    }
+
+    private Set<Class<?>> loadAnnotatedClasses(final Collection<String> candidates) {
         Set<Class<?>> clazzez = new HashSet<Class<?>>();
-        for (URL url : urls) {
+        for (String className : candidates) {
+            Class<?> clazz = applyFilter(className);
+            if (clazz != null) {
+                clazzez.add(clazz);
+            }
+        }
+        return clazzez;
+    }
+
+    /**
+     * Reads the class file to check if the class may carry the annotation,
+     * without loading it. Closes the stream.
+     * 
+     * @param classFile
+     * @return false if the class is not annotated
+     */
+    private boolean mayBeAnnotated(final InputStream classFile) {
+        try {
+            return annotationScanner.mayReference(classFile);
+        } finally {
             try {
-                clazzez.addAll(scanURLAnnotatedClasses(url, ""));
+                classFile.close();
             } catch (IOException e) {
-                // Ignore IOException and continue to iterate thru the array
-                // elements.
+                // Ignore, the class file was read
             }
         }
-        return clazzez;
     }
 
     private Class<?> applyFilter(final String clazzName) {
         if (isAllowed(clazzName)) {
             try {
-                Class<?> clazz = Class.forName(clazzName, false, this.getClass().getClassLoader());
+                Class<?> clazz = Class.forName(clazzName, false, getScanClassLoader());
                 T annotation = clazz.getAnnotation(annoClazz);
                 if (annotation != null) {
                     return clazz;
@@ -214,72 +562,21 @@ public class ScanClassPath<T extends Annotation> {
      * @throws IOException
      */
     public Set<Class<?>> scanPackageAnnotatedClasses(final Package pPackage) throws IOException {
-        String path = pPackage.getName().replace('.', '/');
-        Enumeration<URL> resources = Thread.currentThread().getContextClassLoader().getResources(path);
+        Enumeration<URL> resources = Thread.currentThread().getContextClassLoader()
+                .getResources(pPackage.getName().replace('.', '/'));
         Set<Class<?>> clazzes = new HashSet<Class<?>>();
 
         while (resources.hasMoreElements()) {
-            clazzes.addAll(scanURLAnnotatedClasses(resources.nextElement(), pPackage.getName()));
+            URL url = resources.nextElement();
+            Path root = toPath(url);
+            if (root != null) {
+                String packageName = "jar".equals(url.getProtocol()) ? "" : pPackage.getName();
+                clazzes.addAll(loadAnnotatedClasses(scanRootCandidates(root, packageName, null)));
+            }
         }
         return clazzes;
     }
 
-    /**
-     * Helper function to recursively traverse the directory to find annotated
-     * classes
-     * 
-     * @param directory
-     * @param packageName
-     * @return
-     * @throws IOException
-     * @throws Exception
-     */
-    private Set<Class<?>> scanURLAnnotatedClasses(final URL directoryUrl, final String packageName) throws IOException {
-        Set<Class<?>> clazzez = new HashSet<Class<?>>();
-        String directoryName = directoryUrl.toExternalForm();
-        if (directoryName.startsWith("jar:file:") && directoryName.contains("!")) {
-            String[] split = directoryName.split("!");
-            split = split[0].split(":");
-            clazzez.addAll(scanJarAnnotatedClasses(new JarFile(split[2])));
-            return clazzez;
-        } else if (directoryName.startsWith("file:")) {
-            directoryName = directoryName.substring(5);
-            File directory = new File(directoryName);
-            if (!directory.exists()) {
-                return clazzez;
-            }
-            if(directory.isFile() && directory.getPath().endsWith(".jar")) {
-                clazzez.addAll(scanJarAnnotatedClasses(directory));
-                return clazzez;
-            }
-            File[] files = directory.listFiles();
-            if (files == null) {
-                return clazzez;
-            }
-            for (File file : files) {
-                if (file.isDirectory()) {
-                    if (!dirLookupSet.contains(file.getCanonicalPath())) {
-                        dirLookupSet.add(file.getCanonicalPath());
-                        String prefix = packageName + ".";
-                        if (packageName.isEmpty()) {
-                            prefix = "";
-                        }
-                        clazzez.addAll(scanURLAnnotatedClasses(new URL("file:" + file.getAbsolutePath()), prefix + file.getName()));
-                    }
-                } else if (file.getName().endsWith(".class")) {
-                    String className = packageName + '.' + file.getName();
-                    Class<?> clazz = applyFilter(className.substring(0, className.length() - 6));
-                    if (clazz != null) {
-                        clazzez.add(clazz);
-                    }
-                }
-            }
-            return clazzez;
-        } else {
-            logger.error("code should never reach here");
-            return clazzez;
-        }
-    }
 
     /**
      * Return all the classes with annotation in the given path
@@ -302,10 +599,42 @@ public class ScanClassPath<T extends Annotation> {
         return clazzez;
     }
 
-    private void addURL(final URL url) {
-        final ClassLoader classLoader = this.getClass().getClassLoader();
+    /**
+     * Class loader with a public addURL, used for added files when the class
+     * loader of this class is not a URLClassLoader or does not allow adding
+     * urls.
+     */
+    private static final class ExtensionClassLoader extends URLClassLoader {
+        private ExtensionClassLoader(final ClassLoader parent) {
+            super(new URL[0], parent);
+        }
+
+        @Override
+        public void addURL(final URL url) {
+            super.addURL(url);
+        }
+    }
+
+    private volatile ExtensionClassLoader extensionClassLoader = null;
+
+    /**
+     * @return class loader used to load the scanned classes
+     */
+    private ClassLoader getScanClassLoader() {
+        ExtensionClassLoader loader = extensionClassLoader;
+        return loader != null ? loader : this.getClass().getClassLoader();
+    }
+
+    private synchronized void addURL(final URL url) {
+        final ClassLoader classLoader = getScanClassLoader();
+        if (classLoader instanceof ExtensionClassLoader) {
+            addExtensionURL((ExtensionClassLoader) classLoader, url);
+            return;
+        }
         if (!(classLoader instanceof URLClassLoader)) {
-            throw new IllegalArgumentException("Classloader is not a URL classloader, failed to add '" + url + "'");
+            // e.g. the application class loader on java 9 and later
+            addExtensionURL(null, url);
+            return;
         }
         final URLClassLoader urlClassLoader = (URLClassLoader) classLoader;
         List<URL> urls = Arrays.asList(urlClassLoader.getURLs());
@@ -326,10 +655,26 @@ public class ScanClassPath<T extends Annotation> {
                 throw new ConfigRuntimeException("Classloader failed to load URL '" + url + "'", e);
             } catch (InvocationTargetException e) {
                 throw new ConfigRuntimeException("Classloader failed to load URL '" + url + "'", e);
+            } catch (RuntimeException e) {
+                // java.base is not open to reflection on java 16 and later
+                logger.debug("Classloader does not allow adding URL " + url + ", using an extension class loader");
+                addExtensionURL(null, url);
             }
         }
     }
 
+    private void addExtensionURL(final ExtensionClassLoader loader, final URL url) {
+        ExtensionClassLoader extension = loader;
+        if (extension == null) {
+            extension = new ExtensionClassLoader(this.getClass().getClassLoader());
+            extensionClassLoader = extension;
+        }
+        if (!Arrays.asList(extension.getURLs()).contains(url)) {
+            logger.debug("Adding URL to classpath " + url);
+            extension.addURL(url);
+        }
+    }
+
     public void addFileToClassPath(final String absolutePath) {
         String urlPath = "jar:file://" + absolutePath + "!/";
         try {
@@ -363,7 +708,12 @@ public class ScanClassPath<T extends Annotation> {
     }
 
     public Set<Class<?>> scanJarAnnotatedClasses(final File path) throws IOException {
-        return scanJarAnnotatedClasses(new JarFile(path));
+        JarFile jar = new JarFile(path);
+        try {
+            return scanJarAnnotatedClasses(jar);
+        } finally {
+            jar.close();
+        }
     }
 
     public Set<String> scanPackageToStringSet(String packageName) throws IOException {
@@ -379,14 +729,18 @@ public class ScanClassPath<T extends Annotation> {
             String jarFileName = packageURL.getFile();
             jarFileName = jarFileName.substring(5, jarFileName.indexOf("!"));
             JarFile jf = new JarFile(jarFileName);
-            Enumeration<JarEntry> jarEntries = jf.entries();
+            try {
+                Enumeration<JarEntry> jarEntries = jf.entries();
 
-            while (jarEntries.hasMoreElements()) {
-                String entryName = jarEntries.nextElement().getName();
-                if (entryName.startsWith(packageName) && entryName.length() > packageName.length() + 5) {
-                    entryName = entryName.substring(packageName.length(), entryName.lastIndexOf('.'));
-                    names.add(entryName);
+                while (jarEntries.hasMoreElements()) {
+                    String entryName = jarEntries.nextElement().getName();
+                    if (entryName.startsWith(packageName) && entryName.length() > packageName.length() + 5) {
+                        entryName = entryName.substring(packageName.length(), entryName.lastIndexOf('.'));
+                        names.add(entryName);
+                    }
                 }
+            } finally {
+                jf.close();
             }
         } else {
             File folder = new File(packageURL.getFile());
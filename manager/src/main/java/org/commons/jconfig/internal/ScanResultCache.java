@@ -0,0 +1,178 @@
+package org.commons.jconfig.internal;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.annotation.concurrent.ThreadSafe;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Persistent cache of jar scan results. For every scanned jar it keeps the
+ * names of the candidate classes, keyed by jar path, size, modification time
+ * and the filter used by the scan, so jars that did not change are not read
+ * again on the next start.
+ *
+ * File format, one jar per line, tab separated: path, size, modification time,
+ * filter, comma separated class names.
+ */
+@ThreadSafe
+final class ScanResultCache {
+
+    private static final Logger logger = Logger.getLogger(ScanResultCache.class);
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+    private static final String HEADER = "# jconfig scan cache v1";
+
+    private static final class Entry {
+        private final long size;
+        private final long modified;
+        private final String filter;
+        private final List<String> classNames;
+
+        private Entry(final long size, final long modified, final String filter, final List<String> classNames) {
+            this.size = size;
+            this.modified = modified;
+            this.filter = filter;
+            this.classNames = classNames;
+        }
+    }
+
+    private final File file;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<String, Entry>();
+    private volatile boolean dirty = false;
+
+    private ScanResultCache(final File file) {
+        this.file = file;
+    }
+
+    /**
+     * Loads the cache from file. A missing or unreadable file gives an empty
+     * cache.
+     *
+     * @param file
+     * @return cache backed by file
+     */
+    static ScanResultCache load(final File file) {
+        ScanResultCache cache = new ScanResultCache(file);
+        if (!file.isFile()) {
+            return cache;
+        }
+        try {
+            BufferedReader reader = Files.newBufferedReader(file.toPath(), UTF8);
+            try {
+                if (!HEADER.equals(reader.readLine())) {
+                    return cache;
+                }
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    String[] fields = line.split("\t", -1);
+                    if (fields.length != 5) {
+                        continue;
+                    }
+                    List<String> classNames = fields[4].isEmpty() ? Collections.<String> emptyList() : Collections
+                            .unmodifiableList(Arrays.asList(fields[4].split(",")));
+                    cache.entries.put(fields[0], new Entry(Long.parseLong(fields[1]), Long.parseLong(fields[2]),
+                            fields[3], classNames));
+                }
+            } finally {
+                reader.close();
+            }
+        } catch (IOException e) {
+            logger.warn("Failed to read scan cache " + file, e);
+            cache.entries.clear();
+        } catch (NumberFormatException e) {
+            logger.warn("Invalid scan cache " + file, e);
+            cache.entries.clear();
+        }
+        return cache;
+    }
+
+    /**
+     * @param jar
+     * @param size
+     * @param modified
+     * @param filter
+     *            description of the scan filter
+     * @return cached class names or null if the jar changed or was not
+     *         scanned with filter
+     */
+    List<String> get(final Path jar, final long size, final long modified, final String filter) {
+        Entry entry = entries.get(jar.toString());
+        if (entry != null && entry.size == size && entry.modified == modified && entry.filter.equals(filter)) {
+            return entry.classNames;
+        }
+        return null;
+    }
+
+    void put(final Path jar, final long size, final long modified, final String filter, final List<String> classNames) {
+        entries.put(jar.toString(), new Entry(size, modified, filter, Collections.unmodifiableList(new ArrayList<String>(
+                classNames))));
+        dirty = true;
+    }
+
+    /**
+     * Writes the cache if it changed, dropping jars that no longer exist. The
+     * file is replaced atomically so concurrent JVMs never read a partial
+     * cache.
+     */
+    void save() {
+        if (!dirty) {
+            return;
+        }
+        try {
+            File dir = file.getAbsoluteFile().getParentFile();
+            if (dir != null && !dir.isDirectory() && !dir.mkdirs()) {
+                return;
+            }
+            Path temp = Files.createTempFile(dir.toPath(), file.getName(), ".tmp");
+            try {
+                BufferedWriter writer = Files.newBufferedWriter(temp, UTF8);
+                try {
+                    writer.write(HEADER);
+                    writer.newLine();
+                    for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+                        if (!new File(entry.getKey()).isFile()) {
+                            continue;
+                        }
+                        Entry value = entry.getValue();
+                        writer.write(entry.getKey() + "\t" + value.size + "\t" + value.modified + "\t" + value.filter
+                                + "\t");
+                        for (int i = 0; i < value.classNames.size(); i++) {
+                            if (i > 0) {
+                                writer.write(',');
+                            }
+                            writer.write(value.classNames.get(i));
+                        }
+                        writer.newLine();
+                    }
+                } finally {
+                    writer.close();
+                }
+                try {
+                    Files.move(temp, file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                            StandardCopyOption.ATOMIC_MOVE);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(temp, file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                }
+                dirty = false;
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        } catch (IOException e) {
+            logger.warn("Failed to write scan cache " + file, e);
+        }
+    }
+}
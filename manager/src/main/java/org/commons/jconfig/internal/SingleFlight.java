@@ -0,0 +1,93 @@
+package org.commons.jconfig.internal;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.ThreadSafe;
+
+import org.commons.jconfig.config.ConfigRuntimeException;
+
+/**
+ * Runs at most one computation per key at a time. The first caller for a key
+ * runs the callable, concurrent callers for the same key wait for it and share
+ * its result or exception. Once the computation completes the key is released,
+ * the next caller runs a new computation.
+ *
+ * @param <K>
+ *            key type
+ * @param <V>
+ *            result type
+ */
+@ThreadSafe
+public class SingleFlight<K, V> {
+
+    private final ConcurrentHashMap<K, FutureTask<V>> inFlight = new ConcurrentHashMap<K, FutureTask<V>>();
+
+    /** number of callers that shared the result of another caller */
+    private final LongAdder suppressed = new LongAdder();
+
+    /**
+     * Returns the result of callable, or the result of the computation in
+     * flight for key.
+     *
+     * @param key
+     * @param callable
+     * @return computed value
+     * @throws ConfigRuntimeException
+     *             if callable throws a checked exception or the thread is
+     *             interrupted while waiting. Runtime exceptions and errors
+     *             are rethrown as is.
+     */
+    public V execute(@Nonnull final K key, @Nonnull final Callable<V> callable) {
+        FutureTask<V> task = new FutureTask<V>(callable);
+        FutureTask<V> running = inFlight.putIfAbsent(key, task);
+        if (running == null) {
+            try {
+                task.run();
+            } finally {
+                inFlight.remove(key, task);
+            }
+            return getResult(task);
+        }
+        suppressed.increment();
+        return getResult(running);
+    }
+
+    /**
+     * @return number of computations avoided because a computation for the
+     *         same key was in flight
+     */
+    public long getSuppressedCount() {
+        return suppressed.sum();
+    }
+
+    private V getResult(final FutureTask<V> task) {
+        boolean interrupted = false;
+        try {
+            while (true) {
+                try {
+                    return task.get();
+                } catch (InterruptedException e) {
+                    // keep waiting, the leader is still computing for us
+                    interrupted = true;
+                }
+            }
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new ConfigRuntimeException("SingleFlight computation failed:", (Exception) cause);
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package org.commons.jconfig.internal;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.Immutable;
+
+import org.commons.jconfig.config.ConfigRuntimeException;
+import org.commons.jconfig.datatype.ByteValue;
+import org.commons.jconfig.datatype.TimeValue;
+import org.commons.jconfig.datatype.TypeFormatException;
+import org.commons.jconfig.datatype.ValueType;
+
+import com.google.gson.JsonParser;
+
+/**
+ * Converts config values from their string form to the java type of a
+ * {@link ValueType}. Conversions are memoized in a bounded cache shared by all
+ * config classes, so the same literal is parsed once. Config objects get their
+ * own copy of list values, they may modify them.
+ */
+public final class ValueParser {
+
+    /** maximum number of memoized conversions */
+    static final int MAX_PARSED_VALUES = 4096;
+
+    private static final ConcurrentTinyLFUCache<ParseKey, Object> parsedValues = new ConcurrentTinyLFUCache<ParseKey, Object>(
+            MAX_PARSED_VALUES);
+
+    private ValueParser() {
+    }
+
+    @Immutable
+    private static final class ParseKey {
+        private final ValueType valueType;
+        private final String value;
+        private final int hash;
+
+        private ParseKey(final ValueType valueType, final String value) {
+            this.valueType = valueType;
+            this.value = value;
+            this.hash = 31 * valueType.hashCode() + value.hashCode();
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (!(obj instanceof ParseKey)) {
+                return false;
+            }
+            ParseKey other = (ParseKey) obj;
+            return hash == other.hash && valueType == other.valueType && value.equals(other.value);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    /**
+     * Converts value to the java type of valueType
+     *
+     * @param valueType
+     * @param value
+     * @return converted value, lists and json values are new objects
+     * @throws TypeFormatException
+     *             if value is not valid for valueType
+     * @throws ConfigRuntimeException
+     *             if valueType is not supported
+     */
+    public static Object convert(@Nonnull final ValueType valueType, @Nonnull final String value) {
+        if (!isShareable(valueType)) {
+            return parse(valueType, value);
+        }
+        return copy(valueType, convertShared(valueType, value));
+    }
+
+    /**
+     * Converts value to the java type of valueType, lists are unmodifiable
+     * and shared. Only for values of a shareable type, see
+     * {@link #isShareable(ValueType)}.
+     */
+    static Object convertShared(final ValueType valueType, final String value) {
+        ParseKey key = new ParseKey(valueType, value);
+        Object parsed = parsedValues.get(key);
+        if (parsed == null) {
+            // invalid values throw and are not memoized
+            parsed = parse(valueType, value);
+            parsedValues.put(key, parsed);
+        }
+        return parsed;
+    }
+
+    private static Object parse(final ValueType valueType, final String value) {
+        if (ValueType.Number == valueType) {
+            return Double.parseDouble(value);
+        } else if (ValueType.Boolean == valueType) {
+            return Boolean.parseBoolean(value);
+        } else if (ValueType.String == valueType) {
+            return value;
+        } else if (ValueType.StringList == valueType) {
+            return Collections.unmodifiableList(Arrays.asList(value.split(":")));
+        } else if (ValueType.TimeList == valueType) {
+            String[] valueArr = value.split(":");
+            List<TimeValue> listTimeValue = new ArrayList<TimeValue>();
+            for (String timeValue : valueArr) {
+                listTimeValue.add(TimeValue.parse(timeValue));
+            }
+            return Collections.unmodifiableList(listTimeValue);
+        } else if (ValueType.Time == valueType) {
+            return TimeValue.parse(value);
+        } else if (ValueType.Bytes == valueType) {
+            return ByteValue.parse(value);
+        } else if (ValueType.Json == valueType) {
+            JsonParser parser = new JsonParser();
+            return parser.parse(value);
+        } else {
+            throw new ConfigRuntimeException("ConfigManager type " + valueType + " is not supported.");
+        }
+    }
+
+    /**
+     * @param valueType
+     * @return true if converted values of valueType can be memoized, lists
+     *         are copied for each config object, see
+     *         {@link #copy(ValueType, Object)}. Json values are mutable and
+     *         parsed for each config object.
+     */
+    public static boolean isShareable(@Nonnull final ValueType valueType) {
+        return ValueType.Json != valueType;
+    }
+
+    /**
+     * Returns the value to hand to a config object for a shared conversion
+     *
+     * @param valueType
+     * @param shared
+     *            value returned by convertShared
+     * @return a new modifiable list for list types, as a config object may
+     *         sort or set its elements, shared otherwise
+     */
+    @SuppressWarnings("unchecked")
+    static Object copy(final ValueType valueType, final Object shared) {
+        if (ValueType.StringList == valueType) {
+            List<String> list = (List<String>) shared;
+            return Arrays.asList(list.toArray(new String[list.size()]));
+        } else if (ValueType.TimeList == valueType) {
+            return new ArrayList<TimeValue>((List<TimeValue>) shared);
+        }
+        return shared;
+    }
+
+    /**
+     * @return hit and miss statistics of the memoized conversions
+     */
+    public static String getStats() {
+        return parsedValues.getStats();
+    }
+}
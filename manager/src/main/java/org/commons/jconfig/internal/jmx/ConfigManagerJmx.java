@@ -1,5 +1,8 @@
 package org.commons.jconfig.internal.jmx;
 
+import java.util.List;
+
+import org.commons.jconfig.config.ConfigException;
 import org.commons.jconfig.config.ConfigManager;
 
 
@@ -19,7 +22,10 @@ public class ConfigManagerJmx implements ConfigManagerJmxMXBean {
     private final String appName;
     
     /** Current hashCode of config values */
-    private int hashCode = 0;
+    private volatile int hashCode = 0;
+
+    /** snapshot version hashCode was set for, guarded by this */
+    private long hashCodeVersion = 0;
     
     /**
      * 
@@ -54,6 +60,40 @@ public class ConfigManagerJmx implements ConfigManagerJmxMXBean {
         this.hashCode = hashCode;
     }
 
+    /* (non-Javadoc)
+     * @see common.config.internal.jmx.ConfigManagerJmxMXBean#applySnapshot(long, int, java.lang.String)
+     */
+    @Override
+    public boolean applySnapshot(final long version, final int hashCode, final String payload) throws ConfigException {
+        if (!ConfigManager.INSTANCE.getCache().replaceModules(version, payload)) {
+            return false;
+        }
+        synchronized (this) {
+            // concurrent snapshots may get here out of order
+            if (version > hashCodeVersion) {
+                hashCodeVersion = version;
+                this.hashCode = hashCode;
+            }
+        }
+        return true;
+    }
+
+    /* (non-Javadoc)
+     * @see common.config.internal.jmx.ConfigManagerJmxMXBean#getSnapshotVersion()
+     */
+    @Override
+    public long getSnapshotVersion() {
+        return ConfigManager.INSTANCE.getCache().getModulesVersion();
+    }
+
+    /* (non-Javadoc)
+     * @see common.config.internal.jmx.ConfigManagerJmxMXBean#applyModules(java.lang.String)
+     */
+    @Override
+    public void applyModules(final String payload) throws ConfigException {
+        ConfigManager.INSTANCE.getCache().insertModules(payload);
+    }
+
     /* (non-Javadoc)
      * @see common.config.internal.jmx.ConfigManagerJmxMXBean#flipCache()
      */
@@ -62,4 +102,29 @@ public class ConfigManagerJmx implements ConfigManagerJmxMXBean {
         ConfigManager.INSTANCE.resetAndFlipCache();
     }
 
+    /* (non-Javadoc)
+     * @see common.config.internal.jmx.ConfigManagerJmxMXBean#getDuplicateBuildsAvoided()
+     */
+    @Override
+    public long getDuplicateBuildsAvoided() {
+        return ConfigManager.INSTANCE.getDuplicateBuildsAvoided();
+    }
+
+    /* (non-Javadoc)
+     * @see common.config.internal.jmx.ConfigManagerJmxMXBean#activateConfig(java.lang.String)
+     */
+    @Override
+    public boolean activateConfig(final String className) {
+        return ConfigManager.INSTANCE.activateConfig(className);
+    }
+
+    /* (non-Javadoc)
+     * @see common.config.internal.jmx.ConfigManagerJmxMXBean#getActiveConfigs()
+     */
+    @Override
+    public String[] getActiveConfigs() {
+        List<String> names = ConfigManager.INSTANCE.getActiveConfigs();
+        return names.toArray(new String[names.size()]);
+    }
+
 }
@@ -1,5 +1,7 @@
 package org.commons.jconfig.internal.jmx;
 
+import org.commons.jconfig.config.ConfigException;
+
 /**
  * MBean that exposes attributes of a Java Virtual Machine Application
  * with ConfigManager support
@@ -25,9 +27,66 @@ public interface ConfigManagerJmxMXBean {
     public void updateConfigHashCode(int hashCode);
     
     
+    /**
+     * Sets the values of several config modules in one call, to be made
+     * readable by {@link #flipCache()}. Same result as setting each attribute
+     * of the config MBeans of the modules.
+     * 
+     * @param payload
+     *            {"Modules": { module name : value, ... }}, in config file
+     *            format
+     * @throws ConfigException
+     *             if payload is not valid, no module is set
+     */
+    public void applyModules(String payload) throws ConfigException;
+
+    /**
+     * Replaces all the config values with a complete snapshot. The snapshot
+     * is validated first and swapped in only if version is newer than the
+     * version of the current snapshot, together with its hash code.
+     * 
+     * @param version
+     *            version of the snapshot, increasing with every push
+     * @param hashCode
+     *            version of Config values returned by
+     *            {@link #getConfigHashCode()} once applied
+     * @param payload
+     *            {"Modules": { module name : value, ... }}, in config file
+     *            format
+     * @return false if version is stale or already applied
+     * @throws ConfigException
+     *             if payload is not valid, nothing is changed
+     */
+    public boolean applySnapshot(long version, int hashCode, String payload) throws ConfigException;
+
+    /**
+     * @return version of the snapshot last applied, 0 if none was
+     */
+    public long getSnapshotVersion();
+
     /**
      * Flips ConfigManager cache
      */
     public void flipCache();
+
+    /**
+     * @return number of config object builds avoided because the same object
+     *         was being built by another thread
+     */
+    public long getDuplicateBuildsAvoided();
+
+    /**
+     * Registers and loads a config class when lazy activation is enabled
+     * 
+     * @param className
+     *            name of a @Config class
+     * @return true if the class was activated by this call
+     */
+    public boolean activateConfig(String className);
+
+    /**
+     * @return names of the config classes registered and loaded
+     */
+    public String[] getActiveConfigs();
     
 }
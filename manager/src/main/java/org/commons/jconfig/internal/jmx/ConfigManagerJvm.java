@@ -1,6 +1,8 @@
 package org.commons.jconfig.internal.jmx;
 
 import java.io.IOException;
+import java.lang.reflect.UndeclaredThrowableException;
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -69,61 +71,97 @@ public class ConfigManagerJvm extends VirtualMachine {
     
     /**
      * Attach to the VM with a registered @ConfigManagerMXBean who's name attribute matches
-     * objectName.
+     * objectName. Uses the connectors of @JmxConnectorPool, the vm the MBean was last
+     * found in is checked first, the running vms are searched only if it is not there.
      * @throws @VirtualMachineException
      */
     @Override
     public void attach() throws VirtualMachineException {
+        JmxConnectorPool pool = JmxConnectorPool.INSTANCE;
+        String id = pool.getManagerVmId(objectName);
+        if (id != null) {
+            try {
+                JMXConnector jmxc = pool.call(id, new JmxConnectorPool.Call<JMXConnector>() {
+                    @Override
+                    public JMXConnector call(final JMXConnector jmxc) throws IOException {
+                        return jmxc.getMBeanServerConnection().isRegistered(objectName) ? jmxc : null;
+                    }
+                });
+                if (jmxc != null) {
+                    vmId = id;
+                    setPooledJMXConnector(jmxc);
+                    return;
+                }
+            } catch (VirtualMachineException e) {
+                logger.debug("Fail attaching to vm " + id, e);
+            } catch (IOException e) {
+                pool.evict(id);
+                logger.debug("Fail attaching to vm " + id, e);
+            }
+            pool.removeManager(objectName, id);
+        }
 
         // Iterate through the running vms ...
+        Set<String> pooled = pool.getVmIds();
         List<VirtualMachineDescriptor> vms = com.sun.tools.attach.VirtualMachine.list();
         for (VirtualMachineDescriptor vmd : vms) {
-            JMXConnector jmxc = null;
+            if (vmd.id().equals(id)) {
+                continue;
+            }
             try {
-                jmxc = connect(vmd);
-                MBeanServerConnection mbsc = jmxc.getMBeanServerConnection();
-                // Look for one that has the ConfigLoader MBean registered
-                if (!mbsc.isRegistered(objectName)) {
-                    jmxc.close();
-                    continue;
-                } else {
-                    //
-                    // now does it match the objectName we are looking for
-                    //
-                    ConfigManagerJmxMXBean managerBean = JMX.newMBeanProxy(mbsc, objectName,
-                            ConfigManagerJmxMXBean.class, true);
-
-                    if (managerBean.getVMName().equals(objectName.getKeyProperty(APPNAME_KEY))) {
-                        vmId = vmd.id();
-                        // Set the JMXConnector and the MBeanServerConnection
-                        setJMXConnector(jmxc);
-                        return;
-                    }
+                JMXConnector jmxc = pool.get(vmd);
+                if (matches(jmxc)) {
+                    vmId = vmd.id();
+                    pool.putManager(objectName, vmId);
+                    setPooledJMXConnector(jmxc);
+                    return;
                 }
-            } catch (IOException e) {
-                if (jmxc != null) {
-                    try {
-                        jmxc.close();
-                    } catch (IOException e1) {
-
-                    }
+                if (!pooled.contains(vmd.id())) {
+                    // not a config manager vm, do not keep a connection to it
+                    pool.evict(vmd.id());
                 }
-                // ignore exception to allow gc to collect the object ad
+            } catch (VirtualMachineException e) {
                 // continue to loop to find the correct jvm
+                logger.debug("Fail attaching to vm " + vmd.id(), e);
             }
         }
         throw new VirtualMachineException("Unable to find config manager jvm with appname: " + objectName);
     }
-    
+
+    /**
+     * @return true if the ConfigManager MBean objectName is registered in the vm of jmxc
+     */
+    private boolean matches(final JMXConnector jmxc) {
+        try {
+            MBeanServerConnection mbsc = jmxc.getMBeanServerConnection();
+            // Look for one that has the ConfigLoader MBean registered
+            if (!mbsc.isRegistered(objectName)) {
+                return false;
+            }
+            //
+            // now does it match the objectName we are looking for
+            //
+            ConfigManagerJmxMXBean managerBean = JMX.newMBeanProxy(mbsc, objectName, ConfigManagerJmxMXBean.class,
+                    true);
+            return managerBean.getVMName().equals(objectName.getKeyProperty(APPNAME_KEY));
+        } catch (IOException e) {
+            return false;
+        } catch (UndeclaredThrowableException e) {
+            // the vm went away between the checks
+            return false;
+        }
+    }
+
     /**
-     * @return Set of {@link ConfigManagerJvm} all in attached state
+     * @return Set of {@link ConfigManagerJvm} all in attached state, sharing the
+     *         pooled connector of their vm. Connectors of vms that exited are closed.
      */
     public static Set<ConfigManagerJvm> find() {
         Set<ConfigManagerJvm> jvms = new HashSet<ConfigManagerJvm>();
-        JMXConnector jmxc = null;
+        JmxConnectorPool pool = JmxConnectorPool.INSTANCE;
 
         List<VirtualMachineDescriptor> vms = com.sun.tools.attach.VirtualMachine.list();
-        ObjectName mbeanName;
+        final ObjectName mbeanName;
         try {
             mbeanName = new ObjectName(CONFIG_MGR_MBEAN_SEARCH_PATTERN);
         } catch (MalformedObjectNameException e) {
@@ -131,30 +169,40 @@ public class ConfigManagerJvm extends VirtualMachine {
         }
 
         // Iterate through the running vms ...
+        List<String> liveVmIds = new ArrayList<String>(vms.size());
         for (VirtualMachineDescriptor vmd : vms) {
+            liveVmIds.add(vmd.id());
             try {
-                jmxc = connect(vmd);
-                MBeanServerConnection mbsc = jmxc.getMBeanServerConnection();
-
-                Set<ObjectName> registeredConfigManagers = new TreeSet<ObjectName>(mbsc.queryNames(mbeanName, null));
+                pool.get(vmd);
+                Set<ObjectName> registeredConfigManagers = pool.call(vmd.id(),
+                        new JmxConnectorPool.Call<Set<ObjectName>>() {
+                            @Override
+                            public Set<ObjectName> call(final JMXConnector jmxc) throws IOException {
+                                return new TreeSet<ObjectName>(jmxc.getMBeanServerConnection().queryNames(
+                                        mbeanName, null));
+                            }
+                        });
                 if (registeredConfigManagers.isEmpty()) {
-                    jmxc.close();
+                    // not a config manager vm, do not keep a connection to it
+                    pool.evict(vmd.id());
                     continue;
-                } else {
-                    jmxc.close();
-                    for (ObjectName bname : registeredConfigManagers) {
-                        ConfigManagerJvm vm = new ConfigManagerJvm(bname);
-                        vm.setJMXConnector(connect(vmd));
-                        vm.setVmId(vmd.id());
-                        jvms.add(vm);
-                    }
+                }
+                JMXConnector jmxc = pool.get(vmd);
+                for (ObjectName bname : registeredConfigManagers) {
+                    pool.putManager(bname, vmd.id());
+                    ConfigManagerJvm vm = new ConfigManagerJvm(bname);
+                    vm.setPooledJMXConnector(jmxc);
+                    vm.setVmId(vmd.id());
+                    jvms.add(vm);
                 }
             } catch (VirtualMachineException e) {
                 logger.debug("Fail fetching config manager vms ", e);
             } catch (IOException e) {
+                pool.evict(vmd.id());
                 logger.debug("Fail fetching config manager vms ", e);
             }
         }
+        pool.retain(liveVmIds);
         return jvms;
     }
 
@@ -0,0 +1,214 @@
+package org.commons.jconfig.internal.jmx;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.ThreadSafe;
+import javax.management.ObjectName;
+import javax.management.remote.JMXConnector;
+
+import org.apache.log4j.Logger;
+
+import com.sun.tools.attach.VirtualMachineDescriptor;
+
+/**
+ * Live {@link JMXConnector}s to local virtual machines, keyed by vm id.
+ * Attaching to a vm is expensive, so connectors are kept open across sync
+ * cycles and closed only when their vm is gone or the connection breaks.
+ * Connections are not checked before use, a call failing on a pooled
+ * connector evicts it and is retried once on a new connection, see
+ * {@link #call(String, Call)}.
+ *
+ * The pool also maps the ConfigManager MBeans found in the vms to their vm
+ * id, so a ConfigManager is attached to without probing every vm.
+ *
+ * Pooled connectors are shared, users must not close them, see
+ * {@link VirtualMachine#setPooledJMXConnector(JMXConnector)}.
+ */
+@ThreadSafe
+public final class JmxConnectorPool {
+
+    /**
+     * Call on the connector of a vm
+     *
+     * @param <T>
+     */
+    public interface Call<T> {
+        /**
+         * @param jmxc
+         *            pooled connector, must not be closed
+         * @return result of the call
+         * @throws IOException
+         *             if the connection is broken
+         */
+        T call(JMXConnector jmxc) throws IOException;
+    }
+
+    private static final Logger logger = Logger.getLogger(JmxConnectorPool.class);
+
+    /** pool used by the ConfigLoader */
+    public static final JmxConnectorPool INSTANCE = new JmxConnectorPool();
+
+    private final ConcurrentHashMap<String, JMXConnector> connectors = new ConcurrentHashMap<String, JMXConnector>();
+    /** descriptors of the connected vms, to connect again */
+    private final ConcurrentHashMap<String, VirtualMachineDescriptor> descriptors = new ConcurrentHashMap<String, VirtualMachineDescriptor>();
+    /** ConfigManager MBean names to the id of their vm */
+    private final ConcurrentHashMap<ObjectName, String> managers = new ConcurrentHashMap<ObjectName, String>();
+
+    /**
+     * Returns the pooled connector of vmd, connecting to vmd if there is none.
+     *
+     * @param vmd
+     * @return connector owned by the pool
+     * @throws VirtualMachineException
+     *             if attaching to vmd failed
+     */
+    @Nonnull
+    public JMXConnector get(@Nonnull final VirtualMachineDescriptor vmd) throws VirtualMachineException {
+        descriptors.put(vmd.id(), vmd);
+        JMXConnector jmxc = get(vmd.id());
+        if (jmxc != null) {
+            return jmxc;
+        }
+        return add(vmd.id(), VirtualMachine.connect(vmd));
+    }
+
+    /**
+     * @param vmId
+     * @return the pooled connector of vmId, or null if there is none. The
+     *         connector is not checked, it may be broken.
+     */
+    public JMXConnector get(@Nonnull final String vmId) {
+        return connectors.get(vmId);
+    }
+
+    /**
+     * Runs call on the pooled connector of vmId. If the call fails with an
+     * IOException the connector is evicted, and the call is run once more on
+     * a new connection to the vm.
+     *
+     * @param vmId
+     * @param call
+     * @return result of call
+     * @throws VirtualMachineException
+     *             if there is no connector to vmId and connecting failed
+     * @throws IOException
+     *             if the call failed on the new connection
+     */
+    public <T> T call(@Nonnull final String vmId, @Nonnull final Call<T> call) throws VirtualMachineException,
+            IOException {
+        JMXConnector jmxc = connectors.get(vmId);
+        if (jmxc != null) {
+            try {
+                return call.call(jmxc);
+            } catch (IOException e) {
+                logger.debug("Dropping broken jmx connection to vm " + vmId, e);
+                if (connectors.remove(vmId, jmxc)) {
+                    close(vmId, jmxc);
+                }
+            }
+        }
+        VirtualMachineDescriptor vmd = descriptors.get(vmId);
+        if (vmd == null) {
+            throw new VirtualMachineException("No jmx connection to vm " + vmId);
+        }
+        return call.call(get(vmd));
+    }
+
+    /**
+     * Pools jmxc, unless a connector to vmId was pooled concurrently
+     *
+     * @return the pooled connector of vmId
+     */
+    JMXConnector add(final String vmId, final JMXConnector jmxc) {
+        JMXConnector existing = connectors.putIfAbsent(vmId, jmxc);
+        if (existing != null) {
+            close(vmId, jmxc);
+            return existing;
+        }
+        return jmxc;
+    }
+
+    /**
+     * Closes and removes the connector of vmId, e.g. after a call on it failed
+     *
+     * @param vmId
+     */
+    public void evict(@Nonnull final String vmId) {
+        JMXConnector jmxc = connectors.remove(vmId);
+        if (jmxc != null) {
+            close(vmId, jmxc);
+        }
+    }
+
+    /**
+     * Closes the connectors of the vms not in liveVmIds
+     *
+     * @param liveVmIds
+     *            ids of the running vms
+     */
+    public void retain(@Nonnull final Collection<String> liveVmIds) {
+        Set<String> live = new HashSet<String>(liveVmIds);
+        for (Map.Entry<String, JMXConnector> entry : connectors.entrySet()) {
+            if (!live.contains(entry.getKey()) && connectors.remove(entry.getKey(), entry.getValue())) {
+                close(entry.getKey(), entry.getValue());
+            }
+        }
+        descriptors.keySet().retainAll(live);
+        managers.values().retainAll(live);
+    }
+
+    /**
+     * Records the vm a ConfigManager MBean is registered in
+     *
+     * @param name
+     *            ConfigManager MBean name
+     * @param vmId
+     */
+    public void putManager(@Nonnull final ObjectName name, @Nonnull final String vmId) {
+        managers.put(name, vmId);
+    }
+
+    /**
+     * Forgets a ConfigManager MBean, unless it was recorded in another vm
+     * since
+     *
+     * @param name
+     *            ConfigManager MBean name
+     * @param vmId
+     *            vm the MBean is no longer registered in
+     */
+    public void removeManager(@Nonnull final ObjectName name, @Nonnull final String vmId) {
+        managers.remove(name, vmId);
+    }
+
+    /**
+     * @param name
+     *            ConfigManager MBean name
+     * @return id of the vm the MBean was last found in, or null
+     */
+    public String getManagerVmId(@Nonnull final ObjectName name) {
+        return managers.get(name);
+    }
+
+    /**
+     * @return ids of the vms with a pooled connector
+     */
+    @Nonnull
+    public Set<String> getVmIds() {
+        return new HashSet<String>(connectors.keySet());
+    }
+
+    private static void close(final String vmId, final JMXConnector jmxc) {
+        try {
+            jmxc.close();
+        } catch (IOException e) {
+            logger.debug("Failed to close jmx connection to vm " + vmId, e);
+        }
+    }
+}
@@ -45,11 +45,14 @@ public class VirtualMachine {
     }
 
     /**
-     * closes @JMXConnector
+     * closes @JMXConnector. A pooled @JMXConnector is released, not closed.
      * @throws VMException
      */
     public void close() throws VirtualMachineException {
-        if ( jmxc != null ) {
+        if ( pooled ) {
+            jmxc = null;
+            pooled = false;
+        } else if ( jmxc != null ) {
             try {
                 jmxc.close();
                 jmxc = null;
@@ -101,6 +104,16 @@ public class VirtualMachine {
      */
     public void setJMXConnector(final JMXConnector jmxc) throws VirtualMachineException {
         this.jmxc = jmxc;
+        this.pooled = false;
+    }
+
+    /**
+     * Set a @JMXConnector owned by a @JmxConnectorPool, close() leaves it open
+     * @param jmxc A pooled JMXConnector instance
+     */
+    public void setPooledJMXConnector(final JMXConnector jmxc) {
+        this.jmxc = jmxc;
+        this.pooled = true;
     }
 
     /**
@@ -117,5 +130,10 @@ public class VirtualMachine {
      */
     private JMXConnector jmxc = null;
 
+    /**
+     * true if jmxc belongs to a @JmxConnectorPool
+     */
+    private boolean pooled = false;
+
 }
 
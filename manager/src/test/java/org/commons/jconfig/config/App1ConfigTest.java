@@ -29,6 +29,12 @@ public class App1ConfigTest {
         Assert.assertEquals(config.getAttachmentServerHost(), "localhost");
     }
 
+    @Test
+    public void testGetConfigAsync() throws Exception {
+        App1Config config = ConfigManager.INSTANCE.getConfigAsync(App1Config.class, ConfigContext.EMPTY).get();
+        assertSame(config, ConfigManager.INSTANCE.getConfig(App1Config.class, ConfigContext.EMPTY));
+    }
+
     @Test
     public void testDirectAccessBoolean() {
         App1Config config = ConfigManager.INSTANCE.getConfig(App1Config.class, ConfigContext.EMPTY);
@@ -0,0 +1,107 @@
+package org.commons.jconfig.config;
+
+import java.util.Collections;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class ConfigClassRegistryTest {
+
+    @Test
+    public void testActivateOnce() {
+        ConfigClassRegistry registry = new ConfigClassRegistry();
+        final AtomicInteger runs = new AtomicInteger();
+        Runnable activation = new Runnable() {
+            @Override
+            public void run() {
+                runs.incrementAndGet();
+            }
+        };
+
+        Assert.assertFalse(registry.isActive(App1Config.class));
+        Assert.assertTrue(registry.activate(App1Config.class, activation));
+        Assert.assertFalse(registry.activate(App1Config.class, activation));
+        Assert.assertTrue(registry.isActive(App1Config.class));
+        Assert.assertFalse(registry.isActive(App2Config.class));
+        Assert.assertEquals(runs.get(), 1);
+        Assert.assertEquals(registry.getActiveClassNames(), Collections.singletonList(App1Config.class.getName()));
+    }
+
+    @Test
+    public void testConcurrentCallersWaitForActivation() throws Exception {
+        final ConfigClassRegistry registry = new ConfigClassRegistry();
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<Boolean> first = executor.submit(new Callable<Boolean>() {
+                @Override
+                public Boolean call() throws Exception {
+                    return registry.activate(App1Config.class, new Runnable() {
+                        @Override
+                        public void run() {
+                            started.countDown();
+                            try {
+                                release.await();
+                            } catch (InterruptedException e) {
+                                Thread.currentThread().interrupt();
+                            }
+                        }
+                    });
+                }
+            });
+            Assert.assertTrue(started.await(10, TimeUnit.SECONDS));
+            Future<Boolean> second = executor.submit(new Callable<Boolean>() {
+                @Override
+                public Boolean call() throws Exception {
+                    return registry.activate(App1Config.class, new Runnable() {
+                        @Override
+                        public void run() {
+                            Assert.fail("activated twice");
+                        }
+                    });
+                }
+            });
+            Assert.assertFalse(second.isDone());
+            Assert.assertFalse(registry.isActive(App1Config.class));
+            release.countDown();
+            Assert.assertTrue(first.get(10, TimeUnit.SECONDS));
+            Assert.assertFalse(second.get(10, TimeUnit.SECONDS));
+            Assert.assertTrue(registry.isActive(App1Config.class));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testFailedActivationIsRetried() {
+        ConfigClassRegistry registry = new ConfigClassRegistry();
+        try {
+            registry.activate(App1Config.class, new Runnable() {
+                @Override
+                public void run() {
+                    throw new ConfigRuntimeException("bad config");
+                }
+            });
+            Assert.fail("expected ConfigRuntimeException");
+        } catch (ConfigRuntimeException e) {
+            Assert.assertEquals(e.getMessage(), "bad config");
+        }
+        Assert.assertFalse(registry.isActive(App1Config.class));
+        Assert.assertTrue(registry.getActiveClassNames().isEmpty());
+
+        Assert.assertTrue(registry.activate(App1Config.class, new Runnable() {
+            @Override
+            public void run() {
+            }
+        }));
+        Assert.assertTrue(registry.isActive(App1Config.class));
+    }
+}
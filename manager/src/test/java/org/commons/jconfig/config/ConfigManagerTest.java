@@ -16,7 +16,7 @@ import org.commons.jconfig.annotations.Config;
 import org.commons.jconfig.config.ConfigContext;
 import org.commons.jconfig.config.ConfigManager;
 import org.commons.jconfig.config.ConfigContext.Entry;
-import org.commons.jconfig.internal.ConcurrentLRUCache;
+import org.commons.jconfig.internal.ConcurrentTinyLFUCache;
 import org.commons.jconfig.internal.ScanClassPath;
 import org.testng.Assert;
 import org.testng.annotations.BeforeTest;
@@ -72,7 +72,7 @@ public class ConfigManagerTest {
 
     @Test(enabled=false, dependsOnMethods = { "getConfigCacheNotMiss" })
     public void checkGetConfigCacheNotMiss() {
-        ConcurrentLRUCache<String, Object> configObjectsCache = Deencapsulation.getField(ConfigManager.INSTANCE,
+        ConcurrentTinyLFUCache<ConfigObjectKey, Object> configObjectsCache = Deencapsulation.getField(ConfigManager.INSTANCE,
                 "configObjectsCache");
         assertEquals(configObjectsCache.size(), 2);
     }
@@ -92,7 +92,7 @@ public class ConfigManagerTest {
 
     @Test(enabled=false, dependsOnMethods = { "getConfigCacheMiss" })
     public void checkGetConfigCacheMiss() {
-        ConcurrentLRUCache<String, Object> configObjectsCache = Deencapsulation.getField(ConfigManager.INSTANCE,
+        ConcurrentTinyLFUCache<ConfigObjectKey, Object> configObjectsCache = Deencapsulation.getField(ConfigManager.INSTANCE,
                 "configObjectsCache");
         assertEquals(configObjectsCache.size(), 1003);
     }
@@ -0,0 +1,65 @@
+package org.commons.jconfig.config;
+
+import java.util.Collections;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+import org.commons.jconfig.config.ConfigContext.Entry;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class ConfigObjectKeyTest {
+
+    private static SortedSet<String> contextSet(final String... types) {
+        TreeSet<String> set = new TreeSet<String>();
+        Collections.addAll(set, types);
+        return Collections.unmodifiableSortedSet(set);
+    }
+
+    @Test
+    public void testKeyIsMemoized() {
+        SortedSet<String> farm = contextSet("FARM");
+        ConfigContext context = new ConfigContext(new Entry("FARM", "323"), new Entry("USER", "joe"));
+
+        ConfigObjectKey key = context.getConfigKey(App1Config.class, farm);
+        Assert.assertSame(context.getConfigKey(App1Config.class, farm), key);
+        Assert.assertNotSame(context.getConfigKey(App2Config.class, farm), key);
+        Assert.assertEquals(key.getConfigClass(), App1Config.class);
+
+        // new context types recompute the key
+        SortedSet<String> otherFarm = contextSet("FARM");
+        ConfigObjectKey otherKey = context.getConfigKey(App1Config.class, otherFarm);
+        Assert.assertNotSame(otherKey, key);
+        Assert.assertEquals(otherKey, key);
+
+        // put resets the memoized keys
+        context.put("FARM", 324);
+        ConfigObjectKey newKey = context.getConfigKey(App1Config.class, otherFarm);
+        Assert.assertFalse(newKey.equals(key));
+    }
+
+    @Test
+    public void testProjection() {
+        SortedSet<String> farm = contextSet("FARM");
+        ConfigContext context1 = new ConfigContext(new Entry("FARM", "323"), new Entry("USER", "joe"));
+        ConfigContext context2 = new ConfigContext(new Entry("FARM", "323"), new Entry("USER", "bob"));
+        ConfigContext context3 = new ConfigContext(new Entry("FARM", "324"));
+
+        // values outside the context types are ignored
+        Assert.assertEquals(context1.getConfigKey(App1Config.class, farm),
+                context2.getConfigKey(App1Config.class, farm));
+        Assert.assertEquals(context1.getConfigKey(App1Config.class, farm).hashCode(),
+                context2.getConfigKey(App1Config.class, farm).hashCode());
+        Assert.assertFalse(context1.getConfigKey(App1Config.class, farm).equals(
+                context3.getConfigKey(App1Config.class, farm)));
+        Assert.assertFalse(context1.getConfigKey(App1Config.class, farm).equals(
+                context1.getConfigKey(App2Config.class, farm)));
+
+        // missing context values
+        SortedSet<String> colo = contextSet("COLO");
+        Assert.assertEquals(context1.getConfigKey(App1Config.class, colo),
+                ConfigContext.EMPTY.getConfigKey(App1Config.class, colo));
+        Assert.assertFalse(context1.getConfigKey(App1Config.class, colo).equals(
+                ConfigContext.EMPTY.getConfigKey(App1Config.class, farm)));
+    }
+}
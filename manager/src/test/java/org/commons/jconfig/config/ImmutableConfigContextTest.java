@@ -0,0 +1,71 @@
+package org.commons.jconfig.config;
+
+import java.util.Collections;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+import org.commons.jconfig.config.ConfigContext.Entry;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class ImmutableConfigContextTest {
+
+    @Test
+    public void testValues() {
+        ImmutableConfigContext context = new ImmutableConfigContext.Builder().put("SUBSET1", 706).put("A", "705")
+                .build();
+        Assert.assertFalse(context.isEmpty());
+        Assert.assertEquals(context.get("A"), "705");
+        Assert.assertEquals(context.get("SUBSET1"), "706");
+        Assert.assertEquals(context.getUniqueId(), "A705SUBSET1706");
+        Assert.assertEquals(context.toString(), "{A=705, SUBSET1=706}");
+
+        ConfigContext mutable = new ConfigContext(new Entry("SUBSET1", "706"), new Entry("A", "705"));
+        Assert.assertEquals(context.getUniqueId(), mutable.getUniqueId());
+
+        SortedSet<String> set = new TreeSet<String>(Collections.singleton("SUBSET1"));
+        Assert.assertEquals(context.getUniqueId(set), mutable.getUniqueId(set));
+        Assert.assertEquals(context.getConfigKey(App1Config.class, set), mutable.getConfigKey(App1Config.class, set));
+        Assert.assertSame(context.getConfigKey(App1Config.class, set), context.getConfigKey(App1Config.class, set));
+
+        Assert.assertTrue(new ImmutableConfigContext.Builder().build().isEmpty());
+    }
+
+    @Test(expectedExceptions = ConfigRuntimeException.class)
+    public void testMissingKey() {
+        new ImmutableConfigContext.Builder().put("A", "705").build().get("B");
+    }
+
+    @Test(expectedExceptions = UnsupportedOperationException.class)
+    public void testPut() {
+        new ImmutableConfigContext.Builder().build().put("A", "705");
+    }
+
+    @Test
+    public void testEqualsAndIntern() {
+        ImmutableConfigContext context1 = new ImmutableConfigContext.Builder().put("FARM", 323).put("COLO", "ne1")
+                .build();
+        ImmutableConfigContext context2 = new ImmutableConfigContext.Builder().put("COLO", "ne1").put("FARM", "323")
+                .build();
+        ImmutableConfigContext context3 = new ImmutableConfigContext.Builder().put("COLO", "ne1").build();
+
+        Assert.assertEquals(context1, context2);
+        Assert.assertEquals(context1.hashCode(), context2.hashCode());
+        Assert.assertFalse(context1.equals(context3));
+        Assert.assertNotSame(context1, context2);
+
+        ImmutableConfigContext interned = ImmutableConfigContext.intern(context1);
+        Assert.assertSame(interned, context1);
+        Assert.assertSame(ImmutableConfigContext.intern(context2), context1);
+        Assert.assertSame(new ImmutableConfigContext.Builder().put("COLO", "ne1").put("FARM", 323).intern(),
+                context1);
+    }
+
+    @Test
+    public void testGetConfig() {
+        ConfigContext context = new ImmutableConfigContext.Builder().put("SUBSET1", "706").intern();
+        App1Config config = ConfigManager.INSTANCE.getConfig(App1Config.class, context);
+        Assert.assertNotNull(config);
+        Assert.assertSame(ConfigManager.INSTANCE.getConfig(App1Config.class, context), config);
+    }
+}
@@ -0,0 +1,33 @@
+package org.commons.jconfig.datatype;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * Verifies that {@linkplain UnitValueScanner} finds the same number and units
+ * as the regular expression previously used by TimeValue and ByteValue.
+ */
+public class UnitValueScannerTest {
+
+    private static final Pattern regex = Pattern.compile("\\s*(\\d+)(\\s*)([a-zA-Z]+)\\s*");
+
+    @Test
+    public void matchesRegex() {
+        String[] vals = { "10s", " 10 s ", "10\tms", "abc 10s", "1 2ms", "12.5s", "5", "s", "", "  ", "10 ",
+                "007KiB", "x1y", "1 \n\r\f\u000Bd", "10 \u00e9s", "99 GiB extra 5s", "10_s", "-5s" };
+        for (String val : vals) {
+            Matcher matcher = regex.matcher(val);
+            UnitValueScanner scanned = UnitValueScanner.scan(val);
+            if (matcher.find()) {
+                Assert.assertNotNull(scanned, val);
+                Assert.assertEquals(scanned.getNumber(), matcher.group(1), val);
+                Assert.assertEquals(scanned.getUnits(), matcher.group(3), val);
+            } else {
+                Assert.assertNull(scanned, val);
+            }
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package org.commons.jconfig.internal;
+
+import java.io.File;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.util.Collection;
+import java.util.List;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class ClassPathLocatorsTest {
+
+    private final ClassLoader classLoader = ClassPathLocatorsTest.class.getClassLoader();
+
+    private boolean containsTestClasses(final Collection<URL> urls) throws URISyntaxException {
+        File testClasses = new File(ClassPathLocatorsTest.class.getProtectionDomain().getCodeSource().getLocation()
+                .toURI());
+        for (URL url : urls) {
+            if (new File(url.toURI()).equals(testClasses)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Test
+    public void testJavaClassPath() throws URISyntaxException {
+        Assert.assertTrue(containsTestClasses(ClassPathLocators.JAVA_CLASS_PATH.getClassPathRoots(classLoader)));
+    }
+
+    @Test
+    public void testModuleLayer() {
+        // classpath applications are in the unnamed module, only file modules are returned
+        for (URL url : ClassPathLocators.MODULE_LAYER.getClassPathRoots(classLoader)) {
+            Assert.assertEquals(url.getProtocol(), "file");
+        }
+    }
+
+    @Test
+    public void testGetLocators() {
+        List<ClassPathLocator> locators = ClassPathLocators.getLocators(classLoader);
+        Assert.assertTrue(locators.contains(ClassPathLocators.URL_CLASS_LOADER));
+        Assert.assertTrue(locators.contains(ClassPathLocators.JAVA_CLASS_PATH));
+        Assert.assertTrue(locators.contains(ClassPathLocators.MODULE_LAYER));
+    }
+}
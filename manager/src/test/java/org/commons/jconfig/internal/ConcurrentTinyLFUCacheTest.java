@@ -0,0 +1,137 @@
+package org.commons.jconfig.internal;
+
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class ConcurrentTinyLFUCacheTest {
+
+    private static Boolean mTrue = true;
+    private static Boolean mFalse = false;
+
+    @Test
+    public void testPutGet() {
+        ConcurrentTinyLFUCache<String, Boolean> cache = new ConcurrentTinyLFUCache<String, Boolean>(3);
+        Boolean value = cache.get("true");
+        Assert.assertNull(value);
+        cache.put("true", mTrue);
+        value = cache.get("true");
+        Assert.assertEquals(value, mTrue);
+        cache.put("true", mFalse);
+        value = cache.get("true");
+        Assert.assertNotSame(value, mTrue);
+        Assert.assertEquals(cache.size(), 1);
+        Assert.assertEquals(cache.getStats(), "SIZE:1, MAX_SIZE:3, HIT:2, MISS:1, REUSED_KEYS:1, REMOVED_KEYS:0");
+    }
+
+    @Test
+    public void testMaxSize() {
+        ConcurrentTinyLFUCache<Integer, Integer> cache = new ConcurrentTinyLFUCache<Integer, Integer>(100);
+        for (int i = 0; i < 1000; i++) {
+            cache.put(i, i);
+            Assert.assertTrue(cache.size() <= 100);
+        }
+        Assert.assertEquals(cache.size(), 100);
+
+        // reduce size
+        cache.setMaxSize(10);
+        Assert.assertEquals(cache.size(), 10);
+
+        ConcurrentTinyLFUCache<Integer, Integer> clone = new ConcurrentTinyLFUCache<Integer, Integer>(5, cache);
+        Assert.assertEquals(clone.size(), 5);
+
+        // Test clear cache
+        cache.clear();
+        Assert.assertEquals(cache.size(), 0);
+        Assert.assertNull(cache.get(1));
+        cache.put(1, 1);
+        Assert.assertEquals(cache.get(1), Integer.valueOf(1));
+    }
+
+    @Test
+    public void testReduceSizeEvictsLeastRecentlyUsed() {
+        ConcurrentTinyLFUCache<Integer, Integer> cache = new ConcurrentTinyLFUCache<Integer, Integer>(100);
+        for (int i = 0; i < 100; i++) {
+            cache.put(i, i);
+        }
+        Assert.assertEquals(cache.size(), 100);
+
+        cache.setMaxSize(50);
+        Assert.assertEquals(cache.size(), 50);
+        for (int i = 0; i < 50; i++) {
+            Assert.assertNull(cache.get(i), "key " + i);
+        }
+        for (int i = 50; i < 100; i++) {
+            Assert.assertEquals(cache.get(i), Integer.valueOf(i));
+        }
+    }
+
+    @Test
+    public void testReduceSizeBelowSegmentCount() {
+        ConcurrentTinyLFUCache<Integer, Integer> cache = new ConcurrentTinyLFUCache<Integer, Integer>(100000);
+        for (int i = 0; i < 100000; i++) {
+            cache.put(i, i);
+        }
+        Assert.assertTrue(cache.size() <= 100000);
+
+        for (int maxSize : new int[] { 1000, 77, 10, 2 }) {
+            cache.setMaxSize(maxSize);
+            Assert.assertTrue(cache.size() <= maxSize, cache.getStats());
+            for (int i = 0; i < 1000; i++) {
+                cache.put(100000 + i, i);
+            }
+            Assert.assertTrue(cache.size() <= maxSize, cache.getStats());
+        }
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testInvalidMaxSize() {
+        new ConcurrentTinyLFUCache<String, Boolean>(1);
+    }
+
+    @Test
+    public void testFrequentKeysSurviveScan() {
+        ConcurrentTinyLFUCache<Integer, Integer> cache = new ConcurrentTinyLFUCache<Integer, Integer>(100);
+        for (int i = 0; i < 50; i++) {
+            cache.put(i, i);
+        }
+        for (int round = 0; round < 5; round++) {
+            for (int i = 0; i < 50; i++) {
+                cache.touch(i);
+            }
+        }
+        // one off keys, while the frequent keys are still being read
+        for (int i = 1000; i < 11000; i++) {
+            cache.put(i, i);
+            if (i % 100 == 0) {
+                for (int j = 0; j < 50; j++) {
+                    Assert.assertEquals(cache.get(j), Integer.valueOf(j));
+                }
+            }
+        }
+        for (int i = 0; i < 50; i++) {
+            Assert.assertEquals(cache.get(i), Integer.valueOf(i));
+        }
+    }
+
+    private final ConcurrentTinyLFUCache<Integer, Integer> concurrentCache = new ConcurrentTinyLFUCache<Integer, Integer>(
+            500);
+    private final AtomicInteger seed = new AtomicInteger();
+
+    @Test(threadPoolSize = 30, invocationCount = 300, invocationTimeOut = 10000)
+    public void testConcurrentAccess() {
+        Random random = new Random(seed.incrementAndGet());
+        for (int i = 0; i < 2000; i++) {
+            int key = random.nextInt(2000);
+            Integer value = concurrentCache.get(key);
+            if (value == null) {
+                concurrentCache.put(key, key);
+            } else {
+                Assert.assertEquals(value.intValue(), key);
+            }
+        }
+        Assert.assertTrue(concurrentCache.size() <= 500 + 30);
+    }
+}
@@ -0,0 +1,82 @@
+package org.commons.jconfig.internal;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+
+import org.commons.jconfig.config.ConfigContext;
+import org.commons.jconfig.config.ConfigContext.Entry;
+import org.commons.jconfig.config.ConfigException;
+import org.commons.jconfig.config.ConfigManager;
+import org.commons.jconfig.config.ConfigManagerConfig;
+import org.commons.jconfig.config.ConfigRuntimeException;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class ConfigAdapterJsonTest {
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private File dir;
+    private ConfigManagerConfig config;
+
+    @BeforeMethod
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("jconfig-adapter").toFile();
+        config = new ConfigManagerConfig();
+        config.setConfigPath(dir.getAbsolutePath());
+    }
+
+    @AfterMethod
+    public void tearDown() {
+        for (File file : dir.listFiles()) {
+            file.delete();
+        }
+        dir.delete();
+    }
+
+    private ConfigAdapterJson adapter(final String name, final String content) throws IOException {
+        Files.write(new File(dir, name).toPath(), content.getBytes(UTF8));
+        return new ConfigAdapterJson(name, UTF8, config);
+    }
+
+    @Test
+    public void testModulesAreStreamed() throws Exception {
+        ConfigManagerCache cache = new ConfigManagerCache(ConfigManager.INSTANCE);
+        adapter("modules.json", "{\"Version\":{\"skipped\":[1,{\"Modules\":{}}]},\"Modules\":{"
+                + "\"" + getClass().getName() + "\":{\"_Sets_Type_\":\"COLO\",\"_Sets_\":[{\"key\":[\"ne1\"],"
+                + "\"keyList\":{\"Host\":\"ne1.host\"}}],\"Host\":\"localhost\",\"Json\":{\"a\":[1,2]}},"
+                + "\"_prop_\":{\"Host\":\"prop\"}},\"Trailer\":\"ignored\"}").loadValue(cache);
+        cache.flipCache();
+
+        Assert.assertEquals(cache.get(this, new ConfigContext(new Entry("COLO", "ne1")), "Host", null), "ne1.host");
+        Assert.assertEquals(cache.get(this, new ConfigContext(new Entry("COLO", "sp1")), "Host", null), "localhost");
+        Assert.assertEquals(cache.get(this, new ConfigContext(new Entry("COLO", "ne1")), "Json", null), "{\"a\":[1,2]}");
+        Assert.assertEquals(cache.get(new Object(), new ConfigContext(), "Host", null), "prop");
+    }
+
+    @Test(expectedExceptions = ConfigException.class)
+    public void testMissingModules() throws Exception {
+        adapter("nomodules.json", "{\"Other\":{}}").loadValue(new ConfigManagerCache(ConfigManager.INSTANCE));
+    }
+
+    @Test(expectedExceptions = ConfigException.class)
+    public void testTruncatedFile() throws Exception {
+        adapter("truncated.json", "{\"Modules\":{\"a\":{\"Host\":\"x\"}").loadValue(
+                new ConfigManagerCache(ConfigManager.INSTANCE));
+    }
+
+    @Test(expectedExceptions = ConfigException.class)
+    public void testNotAnObject() throws Exception {
+        adapter("array.json", "[1,2]").loadValue(new ConfigManagerCache(ConfigManager.INSTANCE));
+    }
+
+    @Test(expectedExceptions = ConfigRuntimeException.class)
+    public void testInvalidModule() throws Exception {
+        adapter("invalid.json", "{\"Modules\":{\"a\":\"value\"}}").loadValue(
+                new ConfigManagerCache(ConfigManager.INSTANCE));
+    }
+}
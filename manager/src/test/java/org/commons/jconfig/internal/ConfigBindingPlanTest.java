@@ -0,0 +1,71 @@
+package org.commons.jconfig.internal;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.commons.jconfig.annotations.ConfigGet;
+import org.commons.jconfig.annotations.ConfigSet;
+import org.commons.jconfig.config.App2Config;
+import org.commons.jconfig.config.KeyNotFound;
+import org.commons.jconfig.datatype.ValueType;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class ConfigBindingPlanTest {
+
+    @Test
+    public void testPlanProperties() {
+        ConfigBindingPlan plan = ConfigBindingPlan.create(App2Config.class);
+        Assert.assertEquals(plan.getConfigClass(), App2Config.class);
+        Assert.assertEquals(plan.getResourceName(), "app2.json");
+
+        Map<String, ConfigBindingPlan.Property> properties = new HashMap<String, ConfigBindingPlan.Property>();
+        for (ConfigBindingPlan.Property property : plan.getProperties()) {
+            properties.put(property.getKeyName(), property);
+        }
+
+        ConfigBindingPlan.Property timeout = properties.get("Timeout");
+        Assert.assertNotNull(timeout);
+        Assert.assertEquals(timeout.getSetterName(), "setTimeout");
+        Assert.assertEquals(timeout.getValueType(), ValueType.Time);
+        Assert.assertEquals(timeout.getDefaultValue(), "4 d");
+        Assert.assertEquals(timeout.getLookupKeys(), new String[] { "Timeout",
+                "org.commons.jconfig.config.App2Config.Timeout" });
+
+        ConfigBindingPlan.Property localCluster = properties.get("LocalCluster");
+        Assert.assertNotNull(localCluster);
+        Assert.assertEquals(localCluster.getLookupKeys(), new String[] { "xyz.xmas.common.local_cluster",
+                "LocalCluster", "org.commons.jconfig.config.App2Config.LocalCluster" });
+    }
+
+    public static class MissingSetConfig {
+        @ConfigGet(description = "no setter", type = ValueType.String, defaultValue = "")
+        public String getName() {
+            return null;
+        }
+
+        public void setName(final String name) {
+        }
+    }
+
+    public static class WrongTypeConfig {
+        @ConfigGet(description = "wrong setter", type = ValueType.Number, defaultValue = "0")
+        public Number getSize() {
+            return null;
+        }
+
+        @ConfigSet
+        public void setSize(final String size) {
+        }
+    }
+
+    @Test(expectedExceptions = KeyNotFound.class)
+    public void testMissingConfigSet() {
+        ConfigBindingPlan.create(MissingSetConfig.class);
+    }
+
+    @Test(expectedExceptions = KeyNotFound.class)
+    public void testWrongSetterType() {
+        ConfigBindingPlan.create(WrongTypeConfig.class);
+    }
+}
@@ -0,0 +1,64 @@
+package org.commons.jconfig.internal;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class ConfigFileSourceTest {
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private static String readAll(final Reader reader, final int chunk) throws IOException {
+        StringBuilder content = new StringBuilder();
+        char[] buffer = new char[chunk];
+        int n;
+        try {
+            while ((n = reader.read(buffer, 0, chunk)) != -1) {
+                content.append(buffer, 0, n);
+            }
+        } finally {
+            reader.close();
+        }
+        return content.toString();
+    }
+
+    private static String content() {
+        // multi byte and surrogate pair characters cross the decode buffer boundaries
+        StringBuilder content = new StringBuilder("{\"Modules\":{");
+        for (int i = 0; i < 5000; i++) {
+            content.append("\"k").append(i).append("\":\"caf\u00e9 \u20ac \ud83d\ude00\",");
+        }
+        return content.append("\"end\":1}}").toString();
+    }
+
+    @Test
+    public void testMappedAndStreamedReadersMatch() throws IOException {
+        String content = content();
+        File file = File.createTempFile("jconfig-source", ".json");
+        try {
+            Files.write(file.toPath(), content.getBytes(UTF8));
+            Assert.assertTrue(ConfigFileSource.openReader(file, UTF8, 0) instanceof ConfigFileSource.ByteBufferReader);
+            Assert.assertFalse(ConfigFileSource.openReader(file, UTF8, Long.MAX_VALUE) instanceof ConfigFileSource.ByteBufferReader);
+            for (int chunk : new int[] { 1, 7, 8192, 65536 }) {
+                Assert.assertEquals(readAll(ConfigFileSource.openReader(file, UTF8, 0), chunk), content);
+                Assert.assertEquals(readAll(ConfigFileSource.openReader(file, UTF8, Long.MAX_VALUE), chunk), content);
+            }
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testMalformedInputIsReplaced() throws IOException {
+        byte[] bytes = new byte[] { 'a', (byte) 0xC3, 'b', (byte) 0xE2, (byte) 0x82 };
+        String expected = new String(bytes, UTF8);
+        Assert.assertEquals(readAll(new ConfigFileSource.ByteBufferReader(ByteBuffer.wrap(bytes), UTF8), 16), expected);
+        Assert.assertEquals(readAll(new ConfigFileSource.ByteBufferReader(ByteBuffer.wrap(new byte[0]), UTF8), 16), "");
+    }
+}
@@ -7,14 +7,19 @@ import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.Reader;
 import java.nio.charset.Charset;
+import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 import org.commons.jconfig.config.ConfigContext;
+import org.commons.jconfig.config.ConfigException;
 import org.commons.jconfig.config.ConfigManager;
 import org.commons.jconfig.config.ConfigRuntimeException;
 import org.commons.jconfig.config.ConfigContext.Entry;
+import org.commons.jconfig.datatype.TimeValue;
+import org.commons.jconfig.datatype.ValueType;
 import org.commons.jconfig.internal.ConfigManagerCache;
 import org.testng.Assert;
 import org.testng.annotations.Test;
@@ -202,4 +207,310 @@ public class ConfigManagerCacheTest {
             } // return;
         }
     }
+
+    @Test
+    public void generationChangesWithModuleValues() {
+        ConfigManagerCache adapter = new ConfigManagerCache(ConfigManager.INSTANCE);
+        String moduleName = ConfigManagerCacheTest.class.getName();
+        String values = "{\"_Sets_Type_\":\"COLO\",\"_Sets_\":[{\"key\":[\"ne1\"],\"keyList\":{\"Host\":\"ne1.host\"}}],\"Host\":\"localhost\"}";
+
+        Assert.assertEquals(adapter.getGeneration(ConfigManagerCacheTest.class), 0);
+
+        adapter.insertValue(moduleName, values);
+        adapter.flipCache();
+        long generation = adapter.getGeneration(ConfigManagerCacheTest.class);
+        Assert.assertTrue(generation > 0);
+        Object contextTypes = adapter.getContextTypes(ConfigManagerCacheTest.class);
+
+        // same values, generation and context types are kept
+        adapter.insertValue(moduleName, values);
+        adapter.flipCache();
+        Assert.assertEquals(adapter.getGeneration(ConfigManagerCacheTest.class), generation);
+        Assert.assertSame(adapter.getContextTypes(ConfigManagerCacheTest.class), contextTypes);
+
+        // changed values
+        adapter.insertValue(moduleName, values.replace("ne1.host", "ne1.host2"));
+        adapter.flipCache();
+        long newGeneration = adapter.getGeneration(ConfigManagerCacheTest.class);
+        Assert.assertTrue(newGeneration != generation);
+
+        // module removed, falls back to _prop_ module
+        adapter.insertValue("_prop_", "{\"Host\":\"localhost\"}");
+        adapter.flipCache();
+        long propGeneration = adapter.getGeneration(ConfigManagerCacheTest.class);
+        Assert.assertTrue(propGeneration != newGeneration && propGeneration != 0);
+
+        adapter.flipCache();
+        Assert.assertEquals(adapter.getGeneration(ConfigManagerCacheTest.class), 0);
+    }
+
+    @Test
+    public void typedValuesAreResolvedOnce() {
+        ConfigManagerCache adapter = new ConfigManagerCache(ConfigManager.INSTANCE);
+        adapter.insertValue(getClass().getName(), "{\"_Sets_Type_\":\"COLO\",\"_Sets_\":[{\"key\":[\"ne1\"],"
+                + "\"keyList\":{\"Timeout\":\"5s\"}}],\"Timeout\":\"10s\",\"Retries\":3,\"Json\":{\"a\":1}}");
+        adapter.flipCache();
+
+        ConfigContext ne1 = new ConfigContext();
+        ne1.put("COLO", "ne1");
+        ConfigContext sp1 = new ConfigContext();
+        sp1.put("COLO", "sp1");
+        String[] timeout = new String[] { "Missing", "Timeout" };
+
+        ConfigValue value = adapter.getValue(this, ne1, timeout);
+        Assert.assertEquals(value.getRaw(), "5s");
+        Object typed = value.get(ValueType.Time);
+        Assert.assertEquals(typed, new TimeValue(5, TimeUnit.SECONDS));
+        Assert.assertSame(adapter.getValue(this, ne1, timeout).get(ValueType.Time), typed);
+
+        // sets fall back to defaults
+        Assert.assertEquals(adapter.getValue(this, sp1, timeout).get(ValueType.Time), new TimeValue(10,
+                TimeUnit.SECONDS));
+        Assert.assertEquals(adapter.getValue(this, ne1, new String[] { "Retries" }).get(ValueType.Number), 3.0);
+        Assert.assertNull(adapter.getValue(this, ne1, new String[] { "Missing" }));
+
+        // mutable values are not shared
+        ConfigValue json = adapter.getValue(this, ne1, new String[] { "Json" });
+        Assert.assertNotSame(json.get(ValueType.Json), json.get(ValueType.Json));
+        Assert.assertEquals(adapter.get(this, ne1, "Json", null), "{\"a\":1}");
+    }
+
+    @Test
+    public void mergeMatchesSerialInsert() {
+        String moduleName = getClass().getName();
+        String first = "{\"_Sets_Type_\":\"COLO\",\"_Sets_\":[{\"key\":[\"ne1\"],\"keyList\":{\"Host\":\"ne1.host\","
+                + "\"Port\":\"80\"}}],\"Host\":\"localhost\",\"Port\":\"8080\"}";
+        String second = "{\"_Sets_Type_\":\"COLO\",\"_Sets_\":[{\"key\":[\"ne1\",\"sp1\"],\"keyList\":{\"Port\":\"81\"}}],"
+                + "\"Host\":\"remote\"}";
+
+        ConfigManagerCache serial = new ConfigManagerCache(ConfigManager.INSTANCE);
+        serial.insertValue(moduleName, first);
+        serial.insertValue(moduleName, second);
+        serial.insertValue("_prop_", "{\"Host\":\"prop\"}");
+        serial.flipCache();
+
+        ConfigManagerCache merged = new ConfigManagerCache(ConfigManager.INSTANCE);
+        ConfigManagerCache stagedFirst = new ConfigManagerCache(ConfigManager.INSTANCE);
+        stagedFirst.insertValue(moduleName, first);
+        ConfigManagerCache stagedSecond = new ConfigManagerCache(ConfigManager.INSTANCE);
+        stagedSecond.insertValue(moduleName, second);
+        stagedSecond.insertValue("_prop_", "{\"Host\":\"prop\"}");
+        merged.merge(stagedFirst);
+        merged.merge(stagedSecond);
+        merged.flipCache();
+
+        // staged caches are drained
+        stagedFirst.flipCache();
+        Assert.assertFalse(stagedFirst.isModuleLoaded(this));
+
+        for (String colo : new String[] { "ne1", "sp1", "gq1" }) {
+            ConfigContext context = new ConfigContext(new Entry("COLO", colo));
+            for (String key : new String[] { "Host", "Port" }) {
+                Assert.assertEquals(merged.get(this, context, key, null), serial.get(this, context, key, null));
+            }
+        }
+        ConfigContext ne1 = new ConfigContext(new Entry("COLO", "ne1"));
+        Assert.assertEquals(merged.get(this, ne1, "Host", null), "ne1.host");
+        Assert.assertEquals(merged.get(this, ne1, "Port", null), "81");
+        Assert.assertEquals(merged.getContextTypes(getClass()), serial.getContextTypes(getClass()));
+    }
+
+    @Test(expectedExceptions = ConfigRuntimeException.class)
+    public void mergeRejectsOtherSetType() {
+        String moduleName = getClass().getName();
+        ConfigManagerCache merged = new ConfigManagerCache(ConfigManager.INSTANCE);
+        merged.insertValue(moduleName, "{\"_Sets_Type_\":\"COLO\",\"_Sets_\":[{\"key\":[\"ne1\"],\"keyList\":{}}]}");
+        ConfigManagerCache staged = new ConfigManagerCache(ConfigManager.INSTANCE);
+        staged.insertValue(moduleName, "{\"_Sets_Type_\":\"FARM\",\"_Sets_\":[{\"key\":[\"1\"],\"keyList\":{}}]}");
+        merged.merge(staged);
+    }
+
+    @Test
+    public void insertParsedValueMatchesString() {
+        String values = "{\"_Sets_Type_\":\"COLO\",\"_Sets_\":[{\"key\":[\"ne1\"],\"keyList\":{\"Host\":\"ne1.host\"}}],"
+                + "\"Host\":\"localhost\",\"Retries\":3,\"Json\":{\"a\":[1,2]}}";
+        ConfigManagerCache fromString = new ConfigManagerCache(ConfigManager.INSTANCE);
+        fromString.insertValue(getClass().getName(), values);
+        fromString.flipCache();
+        ConfigManagerCache fromTree = new ConfigManagerCache(ConfigManager.INSTANCE);
+        fromTree.insertValue(getClass().getName(), (JsonObject) new JsonParser().parse(values));
+        fromTree.flipCache();
+
+        for (String colo : new String[] { "ne1", "sp1" }) {
+            ConfigContext context = new ConfigContext(new Entry("COLO", colo));
+            for (String key : new String[] { "Host", "Retries", "Json" }) {
+                Assert.assertEquals(fromTree.get(this, context, key, null), fromString.get(this, context, key, null));
+            }
+        }
+        Assert.assertEquals(fromTree.getContextTypes(getClass()), fromString.getContextTypes(getClass()));
+    }
+
+    @Test
+    public void snapshotRestoresReadableModules() throws IOException, InterruptedException {
+        String moduleName = getClass().getName();
+        String values = "{\"_Sets_Type_\":\"COLO\",\"_Sets_\":[{\"key\":[\"ne1\",\"sp1\"],\"keyList\":{\"Host\":\"ne1.host\"}},"
+                + "{\"key\":[\"gq1\"],\"keyList\":{\"Json\":{\"b\":2}}}],\"Host\":\"localhost\",\"Retries\":3,\"Json\":{\"a\":1}}";
+        File file = File.createTempFile("jconfig-snapshot", ".json");
+        file.delete();
+        try {
+            ConfigManagerCache adapter = new ConfigManagerCache(ConfigManager.INSTANCE);
+            adapter.setSnapshotFile(file);
+            adapter.insertValue(moduleName, values);
+            adapter.insertValue("_prop_", "{\"Host\":\"prop\"}");
+            adapter.flipCache();
+            adapter.awaitSnapshot();
+            Assert.assertTrue(file.isFile());
+
+            ConfigManagerCache restored = new ConfigManagerCache(ConfigManager.INSTANCE);
+            Assert.assertTrue(restored.loadSnapshot(file));
+            for (String colo : new String[] { "ne1", "sp1", "gq1", "xx1" }) {
+                ConfigContext context = new ConfigContext(new Entry("COLO", colo));
+                for (String key : new String[] { "Host", "Retries", "Json", "Missing" }) {
+                    Assert.assertEquals(restored.get(this, context, key, null), adapter.get(this, context, key, null));
+                }
+            }
+            Assert.assertEquals(restored.get(new Object(), new ConfigContext(), "Host", null), "prop");
+            Assert.assertEquals(restored.getContextTypes(getClass()), adapter.getContextTypes(getClass()));
+
+            // the same values pushed again keep the generation of the snapshot
+            long generation = restored.getGeneration(getClass());
+            restored.insertValue(moduleName, values);
+            restored.insertValue("_prop_", "{\"Host\":\"prop\"}");
+            restored.flipCache();
+            Assert.assertEquals(restored.getGeneration(getClass()), generation);
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void snapshotKeepsLatestFlip() throws IOException, InterruptedException {
+        String moduleName = getClass().getName();
+        File file = File.createTempFile("jconfig-snapshot", ".json");
+        file.delete();
+        try {
+            ConfigManagerCache adapter = new ConfigManagerCache(ConfigManager.INSTANCE);
+            adapter.setSnapshotFile(file);
+            // saves are written in the background, the last flip wins
+            for (int i = 0; i < 20; i++) {
+                adapter.insertValue(moduleName, "{\"Host\":\"host" + i + "\"}");
+                adapter.flipCache();
+            }
+            adapter.awaitSnapshot();
+
+            ConfigManagerCache restored = new ConfigManagerCache(ConfigManager.INSTANCE);
+            Assert.assertTrue(restored.loadSnapshot(file));
+            Assert.assertEquals(restored.get(this, new ConfigContext(), "Host", null), "host19");
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void invalidSnapshotIsIgnored() throws IOException {
+        File file = File.createTempFile("jconfig-snapshot", ".json");
+        try {
+            ConfigManagerCache adapter = new ConfigManagerCache(ConfigManager.INSTANCE);
+            Assert.assertFalse(adapter.loadSnapshot(new File(file.getPath() + ".missing")));
+            Files.write(file.toPath(), "{\"Modules\":{\"a\":{\"Host\":\"x\"}".getBytes("UTF-8"));
+            Assert.assertFalse(adapter.loadSnapshot(file));
+            Assert.assertFalse(adapter.isModuleLoaded(this));
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void insertModulesMatchesAttributeInserts() throws ConfigException {
+        String moduleName = getClass().getName();
+        ConfigManagerCache attributes = new ConfigManagerCache(ConfigManager.INSTANCE);
+        attributes.insertValue(moduleName, "{\"Host\":\"localhost\",\"_Sets_Type_\":\"COLO\","
+                + "\"_Sets_\":[{\"key\":[\"ne1\"],\"keyList\":{\"Host\":\"ne1.host\"}}]}");
+        attributes.insertValue(moduleName, "{\"Port\":\"8080\",\"_Sets_Type_\":\"COLO\","
+                + "\"_Sets_\":[{\"key\":[\"ne1\"],\"keyList\":{\"Port\":\"81\"}}]}");
+        attributes.flipCache();
+
+        ConfigManagerCache bulk = new ConfigManagerCache(ConfigManager.INSTANCE);
+        bulk.insertModules("{\"Modules\":{\"" + moduleName + "\":{\"Host\":\"localhost\",\"Port\":\"8080\","
+                + "\"_Sets_Type_\":\"COLO\",\"_Sets_\":[{\"key\":[\"ne1\"],\"keyList\":{\"Host\":\"ne1.host\"}},"
+                + "{\"key\":[\"ne1\"],\"keyList\":{\"Port\":\"81\"}}]},\"_prop_\":{\"Host\":\"prop\"}}}");
+        bulk.flipCache();
+
+        for (String colo : new String[] { "ne1", "sp1" }) {
+            ConfigContext context = new ConfigContext(new Entry("COLO", colo));
+            for (String key : new String[] { "Host", "Port" }) {
+                Assert.assertEquals(bulk.get(this, context, key, null), attributes.get(this, context, key, null));
+            }
+        }
+        Assert.assertEquals(bulk.get(this, new ConfigContext(new Entry("COLO", "ne1")), "Port", null), "81");
+    }
+
+    @Test
+    public void invalidModulesAreNotInserted() {
+        String moduleName = getClass().getName();
+        ConfigManagerCache adapter = new ConfigManagerCache(ConfigManager.INSTANCE);
+        try {
+            adapter.insertModules("{\"Modules\":{\"" + moduleName + "\":{\"Host\":\"x\"},\"bad\":\"value\"}}");
+            Assert.fail("module with a value that is not an object was accepted");
+        } catch (ConfigException e) {
+            Assert.fail("unexpected " + e);
+        } catch (ConfigRuntimeException e) {
+            // expected
+        }
+        adapter.flipCache();
+        Assert.assertFalse(adapter.isModuleLoaded(this));
+    }
+
+    @Test
+    public void replaceModulesByVersion() throws ConfigException {
+        String moduleName = getClass().getName();
+        ConfigContext context = new ConfigContext();
+        ConfigManagerCache adapter = new ConfigManagerCache(ConfigManager.INSTANCE);
+        Assert.assertEquals(adapter.getModulesVersion(), 0);
+
+        Assert.assertTrue(adapter.replaceModules(2, "{\"Modules\":{\"" + moduleName + "\":{\"Host\":\"two\"}}}"));
+        Assert.assertEquals(adapter.get(this, context, "Host", null), "two");
+        Assert.assertEquals(adapter.getModulesVersion(), 2);
+
+        // stale and duplicate versions are rejected
+        Assert.assertFalse(adapter.replaceModules(1, "{\"Modules\":{\"" + moduleName + "\":{\"Host\":\"one\"}}}"));
+        Assert.assertFalse(adapter.replaceModules(2, "not even json"));
+        Assert.assertEquals(adapter.get(this, context, "Host", null), "two");
+
+        // an invalid snapshot changes nothing
+        try {
+            adapter.replaceModules(3, "{\"Modules\":{\"" + moduleName + "\":{\"Host\":\"three\"},\"bad\":1}}");
+            Assert.fail("invalid snapshot was accepted");
+        } catch (ConfigRuntimeException e) {
+            // expected
+        }
+        Assert.assertEquals(adapter.get(this, context, "Host", null), "two");
+        Assert.assertEquals(adapter.getModulesVersion(), 2);
+
+        // partial writes are not published with the snapshot
+        adapter.insertValue(moduleName, "{\"Port\":\"80\"}");
+        Assert.assertTrue(adapter.replaceModules(3, "{\"Modules\":{\"" + moduleName + "\":{\"Host\":\"three\"}}}"));
+        Assert.assertEquals(adapter.get(this, context, "Host", null), "three");
+        Assert.assertNull(adapter.get(this, context, "Port", null));
+    }
+
+    @Test
+    public void publishMergesSharedPropertiesModule() throws ConfigException {
+        ConfigContext context = new ConfigContext();
+        ConfigManagerCache adapter = new ConfigManagerCache(ConfigManager.INSTANCE);
+        adapter.flipCache();
+
+        // lazy activation of two classes backed by different properties files
+        for (String uri : new String[] { "app2.properties", "app2MissingKeyWithoutDefault.properties" }) {
+            ConfigManagerCache staged = new ConfigManagerCache(ConfigManager.INSTANCE);
+            new ConfigAdapterProperties(uri, Charset.forName("UTF-8"), null).loadValue(staged);
+            adapter.publish(staged);
+        }
+
+        Assert.assertEquals(adapter.get(this, context, "xyz.xmas.common.local_farm", null), "323");
+        Assert.assertEquals(adapter.get(this, context,
+                "org.commons.jconfig.config.App2ConfigPropertiesTest$App2ConfigProperties.CacheSize", null), "2 MiB");
+        Assert.assertEquals(adapter.get(this, context,
+                "org.commons.jconfig.config.App2ConfigPropertiesTest$App2ConfigMissingProps.Timeout", null), "500s");
+    }
 }
@@ -0,0 +1,44 @@
+package org.commons.jconfig.internal;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.commons.jconfig.annotations.Config;
+import org.commons.jconfig.config.App1Config;
+import org.commons.jconfig.config.ConfigContext;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class ConstantPoolScannerTest {
+
+    private final ConstantPoolScanner scanner = new ConstantPoolScanner(Config.class);
+
+    private boolean mayReference(final Class<?> clazz) throws IOException {
+        InputStream in = clazz.getResourceAsStream(clazz.getSimpleName() + ".class");
+        try {
+            return scanner.mayReference(in);
+        } finally {
+            in.close();
+        }
+    }
+
+    @Test
+    public void testAnnotatedClass() throws IOException {
+        Assert.assertTrue(mayReference(App1Config.class));
+    }
+
+    @Test
+    public void testClassWithoutAnnotation() throws IOException {
+        Assert.assertFalse(mayReference(ConfigContext.class));
+        Assert.assertFalse(mayReference(ConstantPoolScannerTest.class));
+    }
+
+    @Test
+    public void testInvalidClassFile() {
+        // unreadable class files are left to the class loader
+        Assert.assertTrue(scanner.mayReference(new ByteArrayInputStream(new byte[] { 1, 2, 3 })));
+        Assert.assertTrue(scanner.mayReference(new ByteArrayInputStream(new byte[] { (byte) 0xCA, (byte) 0xFE,
+                (byte) 0xBA, (byte) 0xBE, 0, 0, 0, 52, 0, 10 })));
+    }
+}
@@ -0,0 +1,88 @@
+package org.commons.jconfig.internal;
+
+import java.lang.reflect.InvocationTargetException;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class MethodAccessorsTest {
+
+    public static class Bean {
+        private String name;
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(final String name) {
+            if ("bad".equals(name)) {
+                throw new IllegalStateException(name);
+            }
+            this.name = name;
+        }
+
+        public static String getStaticName() {
+            return "static";
+        }
+    }
+
+    static class HiddenBean {
+        public String getName() {
+            return "hidden";
+        }
+    }
+
+    private void checkAccessors(final MethodAccessor getter, final MethodAccessor setter) throws Exception {
+        Bean bean = new Bean();
+        Assert.assertNull(setter.invoke(bean, "value"));
+        Assert.assertEquals(getter.invoke(bean), "value");
+        setter.invoke(bean, null);
+        Assert.assertNull(getter.invoke(bean));
+
+        try {
+            setter.invoke(bean, "bad");
+            Assert.fail("expected InvocationTargetException");
+        } catch (InvocationTargetException e) {
+            Assert.assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+        try {
+            setter.invoke(bean, Integer.valueOf(1));
+            Assert.fail("expected IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+        try {
+            getter.invoke(new Object());
+            Assert.fail("expected IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testHandleAccessor() throws Exception {
+        MethodAccessor getter = MethodAccessors.of(Bean.class.getMethod("getName"));
+        MethodAccessor setter = MethodAccessors.of(Bean.class.getMethod("setName", String.class));
+        Assert.assertTrue(getter.toString().startsWith("HandleAccessor"));
+        checkAccessors(getter, setter);
+    }
+
+    @Test
+    public void testReflectiveAccessor() throws Exception {
+        MethodAccessor getter = MethodAccessors.reflective(Bean.class.getMethod("getName"));
+        MethodAccessor setter = MethodAccessors.reflective(Bean.class.getMethod("setName", String.class));
+        checkAccessors(getter, setter);
+    }
+
+    @Test
+    public void testStaticMethod() throws Exception {
+        MethodAccessor getter = MethodAccessors.of(Bean.class.getMethod("getStaticName"));
+        Assert.assertEquals(getter.invoke(null), "static");
+    }
+
+    @Test
+    public void testNonPublicClassFallback() throws Exception {
+        MethodAccessor getter = MethodAccessors.of(HiddenBean.class.getMethod("getName"));
+        Assert.assertTrue(getter.toString().startsWith("ReflectiveAccessor"));
+    }
+}
@@ -0,0 +1,72 @@
+package org.commons.jconfig.internal;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Set;
+
+import org.commons.jconfig.annotations.Config;
+import org.commons.jconfig.config.App1Config;
+import org.commons.jconfig.config.App2Config;
+import org.commons.jconfig.config.ConfigManagerConfig;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+public class ScanClassPathTest {
+
+    private final ScanClassPath<Config> scanClasses = new ScanClassPath<Config>(Config.class,
+            Arrays.asList("org.commons.jconfig."));
+
+    private File cacheFile;
+
+    @BeforeClass
+    public void setUp() throws IOException {
+        // the scan cache is enabled by the property only
+        cacheFile = File.createTempFile("jconfig-scan", ".cache");
+        Assert.assertTrue(cacheFile.delete());
+        System.setProperty(ScanClassPath.SCAN_CACHE_PROPERTY, cacheFile.getPath());
+    }
+
+    @AfterClass
+    public void tearDown() {
+        System.clearProperty(ScanClassPath.SCAN_CACHE_PROPERTY);
+        cacheFile.delete();
+    }
+
+    @Test
+    public void testIndexedAnnotatedClasses() {
+        // missing, not annotated and filtered classes are skipped
+        Set<Class<?>> clazzez = scanClasses.scanIndexedAnnotatedClasses("configIndexTest.idx");
+        Assert.assertEquals(clazzez, Collections.<Class<?>> singleton(App1Config.class));
+    }
+
+    @Test
+    public void testNoIndex() {
+        Assert.assertNull(scanClasses.scanIndexedAnnotatedClasses("META-INF/jconfig/missing.idx"));
+    }
+
+    @Test
+    public void testIndexCoversOnlyItsRoot() {
+        // the test classes are read from the index, the manager classes have
+        // no such index and are scanned
+        Set<Class<?>> clazzez = scanClasses.scanAnnotatedClasses("configIndexTest.idx");
+        Assert.assertTrue(clazzez.contains(App1Config.class));
+        Assert.assertFalse(clazzez.contains(App2Config.class));
+        Assert.assertTrue(clazzez.contains(ConfigManagerConfig.class));
+    }
+
+    @Test
+    public void testScanAnnotatedClasses() {
+        Set<Class<?>> clazzez = scanClasses.scanAnnotatedClasses();
+        Assert.assertTrue(clazzez.contains(App1Config.class));
+        Assert.assertTrue(clazzez.contains(ConfigManagerConfig.class));
+        for (Class<?> clazz : clazzez) {
+            Assert.assertNotNull(clazz.getAnnotation(Config.class), clazz.getName());
+        }
+        // second scan reads unchanged jars from the scan cache
+        Assert.assertEquals(scanClasses.scanAnnotatedClasses(), clazzez);
+    }
+}
@@ -0,0 +1,51 @@
+package org.commons.jconfig.internal;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class ScanResultCacheTest {
+
+    @Test
+    public void testSaveAndLoad() throws IOException {
+        Path dir = Files.createTempDirectory("scancache");
+        File cacheFile = new File(dir.toFile(), "scan.cache");
+        Path jar = Files.createFile(dir.resolve("app.jar"));
+        Path removedJar = Files.createFile(dir.resolve("removed.jar"));
+        List<String> classNames = Arrays.asList("org.commons.jconfig.A", "org.commons.jconfig.B");
+
+        ScanResultCache cache = ScanResultCache.load(cacheFile);
+        Assert.assertNull(cache.get(jar, 10, 20, "filter"));
+        cache.put(jar, 10, 20, "filter", classNames);
+        cache.put(removedJar, 1, 2, "filter", classNames);
+        Files.delete(removedJar);
+        cache.save();
+
+        cache = ScanResultCache.load(cacheFile);
+        Assert.assertEquals(cache.get(jar, 10, 20, "filter"), classNames);
+        // changed jar or different filter
+        Assert.assertNull(cache.get(jar, 11, 20, "filter"));
+        Assert.assertNull(cache.get(jar, 10, 21, "filter"));
+        Assert.assertNull(cache.get(jar, 10, 20, "other"));
+        Assert.assertNull(cache.get(removedJar, 1, 2, "filter"));
+
+        Files.delete(cacheFile.toPath());
+        Files.delete(jar);
+        Files.delete(dir);
+    }
+
+    @Test
+    public void testInvalidFile() throws IOException {
+        File cacheFile = File.createTempFile("scan", ".cache");
+        Files.write(cacheFile.toPath(), "not a cache".getBytes("UTF-8"));
+        ScanResultCache cache = ScanResultCache.load(cacheFile);
+        Assert.assertNull(cache.get(cacheFile.toPath(), 0, 0, "filter"));
+        Assert.assertTrue(cacheFile.delete());
+    }
+}
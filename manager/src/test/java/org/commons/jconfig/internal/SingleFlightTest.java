@@ -0,0 +1,83 @@
+package org.commons.jconfig.internal;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.commons.jconfig.config.ConfigRuntimeException;
+import org.commons.jconfig.config.KeyNotFound;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class SingleFlightTest {
+
+    @Test
+    public void testConcurrentCallersShareResult() throws Exception {
+        final SingleFlight<String, Object> flight = new SingleFlight<String, Object>();
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicInteger calls = new AtomicInteger();
+        final Callable<Object> build = new Callable<Object>() {
+            @Override
+            public Object call() throws Exception {
+                calls.incrementAndGet();
+                release.await(10, TimeUnit.SECONDS);
+                return new Object();
+            }
+        };
+
+        int threads = 10;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<Object>> results = new ArrayList<Future<Object>>();
+        for (int i = 0; i < threads; i++) {
+            results.add(executor.submit(new Callable<Object>() {
+                @Override
+                public Object call() {
+                    return flight.execute("key", build);
+                }
+            }));
+        }
+        long end = System.currentTimeMillis() + 10000;
+        while (flight.getSuppressedCount() < threads - 1 && System.currentTimeMillis() < end) {
+            Thread.sleep(10);
+        }
+        release.countDown();
+
+        Object first = results.get(0).get();
+        for (Future<Object> result : results) {
+            Assert.assertSame(result.get(), first);
+        }
+        executor.shutdown();
+        Assert.assertEquals(calls.get(), 1);
+        Assert.assertEquals(flight.getSuppressedCount(), threads - 1);
+
+        // the key is released once the computation completes
+        Assert.assertNotSame(flight.execute("key", build), first);
+        Assert.assertEquals(calls.get(), 2);
+    }
+
+    @Test(expectedExceptions = KeyNotFound.class)
+    public void testRuntimeException() {
+        new SingleFlight<String, Object>().execute("key", new Callable<Object>() {
+            @Override
+            public Object call() {
+                throw new KeyNotFound("missing");
+            }
+        });
+    }
+
+    @Test(expectedExceptions = ConfigRuntimeException.class)
+    public void testCheckedException() {
+        new SingleFlight<String, Object>().execute("key", new Callable<Object>() {
+            @Override
+            public Object call() throws Exception {
+                throw new Exception("failed");
+            }
+        });
+    }
+}
@@ -0,0 +1,44 @@
+package org.commons.jconfig.internal;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.commons.jconfig.datatype.TimeValue;
+import org.commons.jconfig.datatype.ValueType;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class ValueParserTest {
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testStringListsAreCopied() {
+        ConfigValue value = new ConfigValue("b:a:c");
+        List<String> first = (List<String>) value.get(ValueType.StringList);
+        Assert.assertEquals(first, Arrays.asList("b", "a", "c"));
+
+        // config objects may sort and set the elements of their list
+        Collections.sort(first);
+        first.set(0, "z");
+        List<String> second = (List<String>) value.get(ValueType.StringList);
+        Assert.assertNotSame(second, first);
+        Assert.assertEquals(second, Arrays.asList("b", "a", "c"));
+        Assert.assertEquals(ValueParser.convert(ValueType.StringList, "b:a:c"), Arrays.asList("b", "a", "c"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testTimeListsAreCopied() {
+        ConfigValue value = new ConfigValue("1s:2s");
+        List<TimeValue> first = (List<TimeValue>) value.get(ValueType.TimeList);
+        first.add(new TimeValue(3, TimeUnit.SECONDS));
+
+        List<TimeValue> second = (List<TimeValue>) value.get(ValueType.TimeList);
+        Assert.assertEquals(second, Arrays.asList(new TimeValue(1, TimeUnit.SECONDS), new TimeValue(2,
+                TimeUnit.SECONDS)));
+        second.clear();
+        Assert.assertEquals(((List<TimeValue>) ValueParser.convert(ValueType.TimeList, "1s:2s")).size(), 2);
+    }
+}
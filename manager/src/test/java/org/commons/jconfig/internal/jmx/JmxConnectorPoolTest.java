@@ -0,0 +1,201 @@
+package org.commons.jconfig.internal.jmx;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+
+import javax.management.ListenerNotFoundException;
+import javax.management.MBeanServerConnection;
+import javax.management.MalformedObjectNameException;
+import javax.management.NotificationFilter;
+import javax.management.NotificationListener;
+import javax.management.ObjectName;
+import javax.management.remote.JMXConnector;
+import javax.security.auth.Subject;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.sun.tools.attach.VirtualMachineDescriptor;
+
+public class JmxConnectorPoolTest {
+
+    /**
+     * Connector to the platform MBean server, broken once closed or killed
+     */
+    private static class TestConnector implements JMXConnector {
+        private boolean closed = false;
+        private boolean broken = false;
+
+        @Override
+        public void connect() {
+        }
+
+        @Override
+        public void connect(final Map<String, ?> env) {
+        }
+
+        @Override
+        public MBeanServerConnection getMBeanServerConnection() throws IOException {
+            if (closed || broken) {
+                throw new IOException("not connected");
+            }
+            return ManagementFactory.getPlatformMBeanServer();
+        }
+
+        @Override
+        public MBeanServerConnection getMBeanServerConnection(final Subject delegationSubject) throws IOException {
+            return getMBeanServerConnection();
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+
+        @Override
+        public void addConnectionNotificationListener(final NotificationListener listener,
+                final NotificationFilter filter, final Object handback) {
+        }
+
+        @Override
+        public void removeConnectionNotificationListener(final NotificationListener listener)
+                throws ListenerNotFoundException {
+        }
+
+        @Override
+        public void removeConnectionNotificationListener(final NotificationListener l, final NotificationFilter f,
+                final Object handback) throws ListenerNotFoundException {
+        }
+
+        @Override
+        public String getConnectionId() {
+            return "test";
+        }
+    }
+
+    @Test
+    public void testConnectorsAreReused() {
+        JmxConnectorPool pool = new JmxConnectorPool();
+        TestConnector first = new TestConnector();
+        Assert.assertNull(pool.get("1"));
+        Assert.assertSame(pool.add("1", first), first);
+        Assert.assertSame(pool.get("1"), first);
+
+        // a concurrent connect loses to the pooled connector
+        TestConnector second = new TestConnector();
+        Assert.assertSame(pool.add("1", second), first);
+        Assert.assertTrue(second.closed);
+        Assert.assertFalse(first.closed);
+        Assert.assertEquals(pool.getVmIds(), Collections.singleton("1"));
+    }
+
+    /** Returns the MBean count, a round trip */
+    private static final JmxConnectorPool.Call<Integer> COUNT = new JmxConnectorPool.Call<Integer>() {
+        @Override
+        public Integer call(final JMXConnector jmxc) throws IOException {
+            return jmxc.getMBeanServerConnection().getMBeanCount();
+        }
+    };
+
+    @Test
+    public void testBrokenConnectorsAreEvicted() throws IOException {
+        JmxConnectorPool pool = new JmxConnectorPool();
+        TestConnector connector = new TestConnector();
+        pool.add("1", connector);
+        connector.broken = true;
+        // not checked until a call fails
+        Assert.assertSame(pool.get("1"), connector);
+        try {
+            pool.call("1", COUNT);
+            Assert.fail("call on a broken connector without a vm to connect to");
+        } catch (VirtualMachineException e) {
+            // expected
+        }
+        Assert.assertNull(pool.get("1"));
+        Assert.assertTrue(connector.closed);
+        Assert.assertTrue(pool.getVmIds().isEmpty());
+    }
+
+    @Test
+    public void testFailedCallIsRetriedOnNewConnection() throws VirtualMachineException, IOException {
+        String pid = ManagementFactory.getRuntimeMXBean().getName().split("@")[0];
+        VirtualMachineDescriptor self = null;
+        for (VirtualMachineDescriptor vmd : com.sun.tools.attach.VirtualMachine.list()) {
+            if (vmd.id().equals(pid)) {
+                self = vmd;
+            }
+        }
+        Assert.assertNotNull(self);
+
+        JmxConnectorPool pool = new JmxConnectorPool();
+        pool.get(self);
+        pool.evict(pid);
+        TestConnector broken = new TestConnector();
+        broken.broken = true;
+        pool.add(pid, broken);
+
+        Assert.assertEquals(pool.call(pid, COUNT), ManagementFactory.getPlatformMBeanServer().getMBeanCount());
+        Assert.assertTrue(broken.closed);
+        JMXConnector reconnected = pool.get(pid);
+        Assert.assertNotNull(reconnected);
+        Assert.assertNotSame(reconnected, broken);
+        pool.evict(pid);
+    }
+
+    @Test
+    public void testManagersAreMappedToTheirVm() throws MalformedObjectNameException {
+        JmxConnectorPool pool = new JmxConnectorPool();
+        ObjectName app1 = new ObjectName(ConfigManagerJvm.CONFIG_MGR_MBEAN_NAME + "app1");
+        ObjectName app2 = new ObjectName(ConfigManagerJvm.CONFIG_MGR_MBEAN_NAME + "app2");
+        pool.putManager(app1, "1");
+        pool.putManager(app2, "2");
+        Assert.assertEquals(pool.getManagerVmId(app1), "1");
+
+        // app1 moved to another vm before its old vm was reported gone
+        pool.putManager(app1, "3");
+        pool.removeManager(app1, "1");
+        Assert.assertEquals(pool.getManagerVmId(app1), "3");
+
+        pool.retain(Arrays.asList("1", "3"));
+        Assert.assertNull(pool.getManagerVmId(app2));
+        Assert.assertEquals(pool.getManagerVmId(app1), "3");
+    }
+
+    @Test
+    public void testConnectorsOfExitedVmsAreClosed() {
+        JmxConnectorPool pool = new JmxConnectorPool();
+        TestConnector one = new TestConnector();
+        TestConnector two = new TestConnector();
+        TestConnector three = new TestConnector();
+        pool.add("1", one);
+        pool.add("2", two);
+        pool.add("3", three);
+
+        pool.retain(Arrays.asList("1", "3", "4"));
+        Assert.assertEquals(pool.getVmIds(), new HashSet<String>(Arrays.asList("1", "3")));
+        Assert.assertTrue(two.closed);
+        Assert.assertFalse(one.closed || three.closed);
+
+        pool.evict("3");
+        Assert.assertTrue(three.closed);
+        Assert.assertEquals(pool.getVmIds(), Collections.singleton("1"));
+    }
+
+    @Test
+    public void testPooledConnectorIsReleasedNotClosed() throws VirtualMachineException {
+        TestConnector connector = new TestConnector();
+        VirtualMachine vm = new VirtualMachine();
+        vm.setPooledJMXConnector(connector);
+        vm.close();
+        Assert.assertNull(vm.getJMXConnector());
+        Assert.assertFalse(connector.closed);
+
+        vm.setJMXConnector(connector);
+        vm.close();
+        Assert.assertTrue(connector.closed);
+    }
+}